@@ -1,15 +1,36 @@
 package com.dailycodework.universalpetcare.config;
 
 
+import jakarta.servlet.MultipartConfigElement;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
 
 @Configuration
 public class ApplicationConfig {
+    // Room for the multipart boundaries and the other form fields next to the photo
+    private static final DataSize MULTIPART_OVERHEAD = DataSize.ofMegabytes(1);
 
     @Bean
     public ModelMapper modelMapper(){
         return new ModelMapper();
     }
+
+    @Bean
+    public Clock clock(){
+        return Clock.systemUTC();
+    }
+
+    // The request cap follows the photo size limit, so raising PHOTO_MAX_FILE_SIZE is enough
+    @Bean
+    public MultipartConfigElement multipartConfigElement(MultipartProperties properties,
+                                                         @Value("${photo.upload.max-file-size:15MB}") DataSize maxFileSize) {
+        properties.setMaxRequestSize(DataSize.ofBytes(maxFileSize.toBytes() + MULTIPART_OVERHEAD.toBytes()));
+        return properties.createMultipartConfig();
+    }
 }
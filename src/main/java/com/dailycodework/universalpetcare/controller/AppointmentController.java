@@ -1,23 +1,31 @@
 package com.dailycodework.universalpetcare.controller;
 
+import com.dailycodework.universalpetcare.dto.AppointmentRowDto;
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
 import com.dailycodework.universalpetcare.event.AppointmentApprovedEvent;
 import com.dailycodework.universalpetcare.event.AppointmentBookedEvent;
 import com.dailycodework.universalpetcare.event.AppointmentDeclinedEvent;
 import com.dailycodework.universalpetcare.exception.AlreadyExistsException;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
 import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.request.AppointmentFilterRequest;
 import com.dailycodework.universalpetcare.request.AppointmentUpdateRequest;
 import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
 import com.dailycodework.universalpetcare.response.ApiResponse;
 import com.dailycodework.universalpetcare.service.appointment.AppointmentService;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
 import com.dailycodework.universalpetcare.utils.UrlMapping;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +38,7 @@ import static org.springframework.http.HttpStatus.*;
 public class AppointmentController {
     private final AppointmentService appointmentService;
     private  final ApplicationEventPublisher publisher;
+    private final ObjectMapper objectMapper;
 
     @GetMapping(UrlMapping.ALL_APPOINTMENT)
     public ResponseEntity<ApiResponse> getAllAppointments() {
@@ -42,6 +51,33 @@ public class AppointmentController {
         }
     }
 
+    @GetMapping(UrlMapping.APPOINTMENT_PAGE)
+    public ResponseEntity<ApiResponse> getAppointmentPage(AppointmentFilterRequest filter,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer size) {
+        try {
+            CursorPageDto<AppointmentRowDto> page = appointmentService.getAppointmentPage(filter, cursor, size);
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.APPOINTMENT_FOUND, page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    // Newline-delimited JSON, one appointment per line, written while rows are read
+    @GetMapping(UrlMapping.APPOINTMENT_STREAM)
+    public ResponseEntity<StreamingResponseBody> streamAppointments(AppointmentFilterRequest filter) {
+        StreamingResponseBody body = out -> appointmentService.streamAppointments(filter, row -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 
     @PostMapping(UrlMapping.BOOK_APPOINTMENT)
     public ResponseEntity<ApiResponse> bookAppointment(
@@ -54,6 +90,8 @@ public class AppointmentController {
             return ResponseEntity.ok(new ApiResponse(FeedBackMessage.APPOINTMENT_BOOKED_SUCCESS, theAppointment));
         }catch (ResourceNotFoundException e){
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        }catch (AlreadyExistsException e){
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(), null));
         }catch (Exception e){
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
         }
@@ -101,6 +139,10 @@ public class AppointmentController {
             return ResponseEntity.ok(new ApiResponse(FeedBackMessage.APPOINTMENT_UPDATE_SUCCESS, appointment));
         } catch (IllegalStateException e) {
            return ResponseEntity.status(NOT_ACCEPTABLE).body(new ApiResponse(e.getMessage(), null));
+        } catch (AlreadyExistsException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
         }
     }
     @PutMapping(UrlMapping.CANCEL_APPOINTMENT)
@@ -150,5 +192,16 @@ public class AppointmentController {
         }
     }
 
+    // Recounts the status counters from the appointment table
+    @PostMapping(UrlMapping.REBUILD_APPOINTMENT_SUMMARY)
+    public ResponseEntity<ApiResponse> rebuildAppointmentSummary() {
+        try {
+            List<Map<String, Object>> summary = appointmentService.rebuildAppointmentSummary();
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.SUCCESS, summary));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(FeedBackMessage.ERROR + e.getMessage(), null));
+        }
+    }
+
     
 }
@@ -1,27 +1,48 @@
 package com.dailycodework.universalpetcare.controller;
 
+import com.dailycodework.universalpetcare.dto.PhotoMetadataDto;
+import com.dailycodework.universalpetcare.dto.PhotoUploadDto;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
+import com.dailycodework.universalpetcare.exception.UploadLimitExceededException;
 import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.request.PhotoUploadRequest;
 import com.dailycodework.universalpetcare.response.ApiResponse;
 import com.dailycodework.universalpetcare.service.photo.IPhotoService;
+import com.dailycodework.universalpetcare.service.photo.IPhotoUploadService;
+import com.dailycodework.universalpetcare.service.photo.PhotoContent;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
 import com.dailycodework.universalpetcare.utils.UrlMapping;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.List;
 import java.sql.SQLException;
 
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.PARTIAL_CONTENT;
+import static org.springframework.http.HttpStatus.PAYLOAD_TOO_LARGE;
+import static org.springframework.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 
 @RestController
 @RequestMapping(UrlMapping.PHOTOS)
 @RequiredArgsConstructor
 public class PhotoController {
     private final IPhotoService photoService;
+    private final IPhotoUploadService photoUploadService;
 
     @PostMapping(UrlMapping.UPLOAD_PHOTO)
     public ResponseEntity<ApiResponse> savePhoto(
@@ -30,21 +51,182 @@ public class PhotoController {
         try {
             Photo photo = photoService.savePhoto(file, userId);
             return ResponseEntity.ok(new ApiResponse(FeedBackMessage.PHOTO_UPDATE_SUCCESS, photo.getId()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(PAYLOAD_TOO_LARGE).body(new ApiResponse(e.getMessage(), null));
         } catch (IOException | SQLException e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
         }
     }
 
+    /*
+     * Resumable upload: POST opens it, PUT sends raw bytes starting at ?offset=
+     * (the acknowledged offset), GET tells where to resume after a dropped
+     * connection. The chunk that reaches totalSize returns the new photo id.
+     */
+    @PostMapping(UrlMapping.START_PHOTO_UPLOAD)
+    public ResponseEntity<ApiResponse> startUpload(@RequestBody PhotoUploadRequest request) {
+        try {
+            PhotoUploadDto upload = photoUploadService.startUpload(request);
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.SUCCESS, upload));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(PAYLOAD_TOO_LARGE).body(new ApiResponse(e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping(UrlMapping.PHOTO_UPLOAD)
+    public ResponseEntity<ApiResponse> getUpload(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.SUCCESS, photoUploadService.getUpload(uploadId)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @PutMapping(value = UrlMapping.PHOTO_UPLOAD, consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse> uploadChunk(@PathVariable String uploadId, @RequestParam long offset,
+                                                   InputStream chunk) {
+        try {
+            PhotoUploadDto upload = photoUploadService.appendChunk(uploadId, offset, chunk);
+            String message = upload.isComplete() ? FeedBackMessage.PHOTO_UPDATE_SUCCESS : FeedBackMessage.SUCCESS;
+            return ResponseEntity.ok(new ApiResponse(message, upload));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            // Tell the client where to resume
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(), photoUploadService.getUpload(uploadId)));
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(PAYLOAD_TOO_LARGE).body(new ApiResponse(e.getMessage(), null));
+        } catch (IOException e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @DeleteMapping(UrlMapping.PHOTO_UPLOAD)
+    public ResponseEntity<ApiResponse> cancelUpload(@PathVariable String uploadId) {
+        try {
+            photoUploadService.cancelUpload(uploadId);
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.PHOTO_UPLOAD_CANCELLED, null));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (IOException e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    /*
+     * The ETag is the key of the served bytes (content hash, plus the variant size),
+     * so a revalidation is answered with 304 from the photo metadata alone. URLs that
+     * carry the hash (?v=<hash>) can never change meaning and are cached for a year;
+     * plain id URLs are revalidated each time. size picks a downscaled variant.
+     * A single byte range (Range, optionally guarded by If-Range) is answered with
+     * 206; several ranges get the whole photo. Small photos come from the byte cache,
+     * larger ones are copied from the stored file starting at the requested offset.
+     */
     @GetMapping(value = UrlMapping.GET_PHOTO_BY_ID)
-    public ResponseEntity<byte[]> getPhotoById(@PathVariable Long photoId) throws SQLException {
-        Photo photo = photoService.getPhotoById(photoId);
-        if (photo != null) {
-            byte[] photoBytes = photoService.getImageData(photo.getId());
-            return ResponseEntity.ok()
-                    .contentType(org.springframework.http.MediaType.parseMediaType(photo.getFileType()))
-                    .body(photoBytes);
+    public ResponseEntity<StreamingResponseBody> getPhotoById(
+            @PathVariable Long photoId,
+            @RequestParam(name = "v", required = false) String version,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(name = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        PhotoMetadataDto photo = photoService.getStoredPhotoMetadata(photoId);
+        CacheControl cacheControl = photo.getContentHash().equals(version)
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+                : CacheControl.noCache().cachePublic();
+        String requestedTag = "\"" + photoService.contentKey(photo, size) + "\"";
+        if (matchesETag(ifNoneMatch, requestedTag)) {
+            return ResponseEntity.status(NOT_MODIFIED).eTag(requestedTag).cacheControl(cacheControl).build();
+        }
+        PhotoContent content = photoService.getPhotoContent(photo, size);
+        String eTag = "\"" + content.key() + "\"";
+        long length = content.length();
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = singleRange(rangeHeader, ifRange, eTag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            if (start >= length) {
+                return ResponseEntity.status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+        }
+        long position = start;
+        long count = end - start + 1;
+        // The servlet stream is wrapped in a plain channel, so this is a buffered copy, not sendfile
+        StreamingResponseBody body = out -> photoService.writeImage(content, position, count, Channels.newChannel(out));
+        ResponseEntity.BodyBuilder response = range != null ? ResponseEntity.status(PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length) : ResponseEntity.ok();
+        return response
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .contentType(content.contentType() != null
+                        ? MediaType.parseMediaType(content.contentType()) : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(count)
+                .body(body);
+    }
+
+    // The one range to serve, or null for the whole photo: no/invalid Range, several ranges, or a stale If-Range
+    private static HttpRange singleRange(String rangeHeader, String ifRange, String eTag) {
+        if (rangeHeader == null || (ifRange != null && !ifRange.trim().equals(eTag))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // If-None-Match uses weak comparison and may list several tags or "*"
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Hit, miss and eviction counts of the in-memory photo byte cache
+    @GetMapping(UrlMapping.GET_PHOTO_CACHE_STATS)
+    public ResponseEntity<ApiResponse> getPhotoCacheStats() {
+        return ResponseEntity.ok(new ApiResponse(FeedBackMessage.SUCCESS, photoService.getCacheStats()));
+    }
+
+    /*
+     * Metadata plus small inline thumbnails for up to 100 photos (e.g. a page of
+     * vet cards) in one response, instead of one photo request per card.
+     */
+    @GetMapping(UrlMapping.GET_PHOTOS_BATCH)
+    public ResponseEntity<ApiResponse> getPhotosBatch(@RequestParam List<Long> ids,
+                                                      @RequestParam(defaultValue = "64") int size) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.SUCCESS, photoService.getPhotoSummaries(ids, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(e.getMessage(), null));
         }
-        return ResponseEntity.notFound().build();
     }
 
     @DeleteMapping(UrlMapping.DELETE_PHOTO)
@@ -72,6 +254,8 @@ public class PhotoController {
             }
         } catch (ResourceNotFoundException | IOException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(PAYLOAD_TOO_LARGE).body(new ApiResponse(e.getMessage(), null));
         }
         return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(null, INTERNAL_SERVER_ERROR));
 
@@ -1,5 +1,6 @@
 package com.dailycodework.universalpetcare.controller;
 
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
 import com.dailycodework.universalpetcare.dto.ReviewDto;
 import com.dailycodework.universalpetcare.exception.AlreadyExistsException;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
@@ -10,7 +11,6 @@ import com.dailycodework.universalpetcare.service.review.IReviewService;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
 import com.dailycodework.universalpetcare.utils.UrlMapping;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -25,7 +25,6 @@ import static org.springframework.http.HttpStatus.*;
 @RestController
 public class ReviewController {
     private final IReviewService reviewService;
-    private final ModelMapper modelMapper;
 
 
     @PostMapping(UrlMapping.SUBMIT_REVIEW)
@@ -69,11 +68,22 @@ public class ReviewController {
     public ResponseEntity<ApiResponse> getReviewsByUserID(@PathVariable Long userId,
                                                           @RequestParam(defaultValue = "0") int page,
                                                           @RequestParam(defaultValue = "5") int size) {
-        Page<Review> reviewPage = reviewService.findAllReviewsByUserId(userId, page, size);
-        Page<ReviewDto> reviewDtos = reviewPage.map((element) -> modelMapper.map(element, ReviewDto.class));
+        Page<ReviewDto> reviewDtos = reviewService.findAllReviewsByUserId(userId, page, size);
         return ResponseEntity.status(FOUND).body(new ApiResponse(FeedBackMessage.REVIEW_FOUND, reviewDtos));
     }
 
+    @GetMapping(UrlMapping.GET_USER_REVIEW_FEED)
+    public ResponseEntity<ApiResponse> getReviewFeed(@PathVariable Long userId,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer size) {
+        try {
+            CursorPageDto<ReviewDto> feed = reviewService.getReviewFeed(userId, cursor, size);
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.REVIEW_FOUND, feed));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
     @GetMapping(UrlMapping.GET_AVERAGE_RATING)
     public ResponseEntity<ApiResponse> getAverageRatingForVet(@PathVariable Long vetId){
         double averageRating = reviewService.getAverageRatingForVet(vetId);
@@ -1,16 +1,20 @@
 package com.dailycodework.universalpetcare.controller;
 
+import com.dailycodework.universalpetcare.dto.RankedVetDto;
 import com.dailycodework.universalpetcare.dto.UserDto;
 import com.dailycodework.universalpetcare.dto.VetSummaryDto;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
 import com.dailycodework.universalpetcare.response.ApiResponse;
+import com.dailycodework.universalpetcare.service.schedule.IVetScheduleService;
 import com.dailycodework.universalpetcare.service.veterinarian.IVeterinarianService;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
 import com.dailycodework.universalpetcare.utils.UrlMapping;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,6 +24,7 @@ import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
@@ -28,6 +33,7 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @RequiredArgsConstructor
 public class VeterinarianController {
     private final IVeterinarianService veterinarianService;
+    private final IVetScheduleService scheduleService;
 
     @GetMapping(UrlMapping.GET_ALL_VETERINARIANS)
     public ResponseEntity<ApiResponse> getAllVeterinarians(
@@ -66,6 +72,19 @@ public class VeterinarianController {
         }
     }
 
+    @GetMapping(UrlMapping.GET_VET_FREE_SLOTS)
+    public ResponseEntity<ApiResponse> getFreeSlots(
+            @PathVariable Long vetId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            Map<LocalDate, List<LocalTime>> freeSlots = scheduleService.getFreeSlots(vetId, from, to);
+            return ResponseEntity.ok(new ApiResponse(FeedBackMessage.RESOURCE_FOUND, freeSlots));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
     @GetMapping(UrlMapping.GET_ALL_SPECIALIZATIONS)
     public ResponseEntity<ApiResponse> getAllSpecializations() {
         try {
@@ -82,4 +101,11 @@ public class VeterinarianController {
         return ResponseEntity.ok(aggregatedVets);
     }
 
+    // Best rated vets of a specialization by Bayesian average, e.g. ?specialization=Dermatology&limit=5
+    @GetMapping(UrlMapping.GET_TOP_RATED_VETS)
+    public ResponseEntity<ApiResponse> getTopRatedVeterinarians(@RequestParam String specialization,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+        List<RankedVetDto> vets = veterinarianService.getTopRatedVeterinarians(specialization, limit);
+        return ResponseEntity.ok(new ApiResponse(FeedBackMessage.RESOURCE_FOUND, vets));
+    }
 }
@@ -0,0 +1,27 @@
+package com.dailycodework.universalpetcare.dto;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Flat JPQL projection of an appointment for listings: no entity, no pets, no user rows
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentRowDto {
+    private Long id;
+    private String appointmentNo;
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate appointmentDate;
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime appointmentTime;
+    private String reason;
+    private AppointmentStatus status;
+    private Long patientId;
+    private Long veterinarianId;
+}
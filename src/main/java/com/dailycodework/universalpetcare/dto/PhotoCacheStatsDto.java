@@ -0,0 +1,19 @@
+package com.dailycodework.universalpetcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoCacheStatsDto {
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long evictedBytes;
+    private long entries;
+    private long cachedBytes;
+    private long maxBytes;
+}
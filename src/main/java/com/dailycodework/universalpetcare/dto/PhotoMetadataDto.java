@@ -0,0 +1,17 @@
+package com.dailycodework.universalpetcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Photo row without the entity: enough to answer caching headers and locate the stored bytes
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoMetadataDto {
+    private Long id;
+    private String fileType;
+    private String fileName;
+    private String contentHash;
+    private Long fileSize;
+}
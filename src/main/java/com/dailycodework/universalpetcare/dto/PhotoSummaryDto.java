@@ -0,0 +1,20 @@
+package com.dailycodework.universalpetcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One entry of a batch photo lookup; thumbnail holds the JPEG bytes (base64 in JSON) when already generated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoSummaryDto {
+    private Long id;
+    private String fileName;
+    private String fileType;
+    private Long fileSize;
+    private String contentHash;
+    private String url;
+    private String thumbnailUrl;
+    private byte[] thumbnail;
+}
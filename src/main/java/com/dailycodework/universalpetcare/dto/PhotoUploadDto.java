@@ -0,0 +1,17 @@
+package com.dailycodework.universalpetcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// State of a resumable upload: the client sends the next chunk starting at offset
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoUploadDto {
+    private String uploadId;
+    private long offset;
+    private long totalSize;
+    private boolean complete;
+    private Long photoId;
+}
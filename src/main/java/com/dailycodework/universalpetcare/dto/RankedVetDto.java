@@ -0,0 +1,20 @@
+package com.dailycodework.universalpetcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A vet in the rating ranking; score is the average smoothed towards the clinic-wide mean
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankedVetDto {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String specialization;
+    private Long photoId;
+    private double averageRating;
+    private long reviewCount;
+    private double score;
+}
@@ -11,7 +11,10 @@ public class ReviewDto {
     private String veterinarianName;
     private Long patientId;
     private String patientName;
-    private byte[] patientImage;
-    private byte[] veterinarianImage;
+    // Photos are fetched separately through these (cacheable) URLs
+    private Long patientPhotoId;
+    private String patientPhotoUrl;
+    private Long veterinarianPhotoId;
+    private String veterinarianPhotoUrl;
     
 }
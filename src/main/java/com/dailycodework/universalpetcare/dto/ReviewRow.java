@@ -0,0 +1,10 @@
+package com.dailycodework.universalpetcare.dto;
+
+// Flat projection of a review: user ids only, their names and photos are resolved in one batch
+public interface ReviewRow {
+    Long getId();
+    Integer getStars();
+    String getFeedback();
+    Long getVeterinarianId();
+    Long getPatientId();
+}
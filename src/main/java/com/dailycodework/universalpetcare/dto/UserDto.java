@@ -23,8 +23,10 @@ public class UserDto {
     private java.time.LocalDateTime createdAt;
     private List<AppointmentDto> appointments;
     private List<ReviewDto> reviews;
+    // Continues the review feed after the embedded reviews; null when there are no more
+    private String reviewsCursor;
     private long photoId;
-    private byte[] photo;
+    private String photoUrl;
     private double averageRating;
     private Set<String> roles;
     private Long totalReviewers;
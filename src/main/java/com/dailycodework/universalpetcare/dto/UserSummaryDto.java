@@ -0,0 +1,17 @@
+package com.dailycodework.universalpetcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Name and photo of a user shown next to a review; no roles, appointments or other associations
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDto {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private Long photoId;
+    private String photoHash;
+}
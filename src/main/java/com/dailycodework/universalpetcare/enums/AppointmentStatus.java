@@ -1,5 +1,8 @@
 package com.dailycodework.universalpetcare.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum AppointmentStatus {
     CANCELLED,
     ON_GOING,
@@ -8,5 +11,8 @@ public enum AppointmentStatus {
     NOT_APPROVED,
     WAITING_FOR_APPROVAL,
     PENDING,
-    COMPLETED
+    COMPLETED;
+
+    // Appointments in these statuses no longer hold the vet's time
+    public static final Set<AppointmentStatus> SLOT_RELEASING = EnumSet.of(CANCELLED, NOT_APPROVED);
 }
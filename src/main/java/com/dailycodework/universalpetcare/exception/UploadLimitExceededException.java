@@ -0,0 +1,7 @@
+package com.dailycodework.universalpetcare.exception;
+
+public class UploadLimitExceededException extends RuntimeException {
+    public UploadLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
 package com.dailycodework.universalpetcare.model;
 
 import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.utils.TimeSortedId;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -25,9 +26,13 @@ import java.util.Random;
 @AllArgsConstructor
 @NoArgsConstructor
 @JsonIgnoreProperties({"patient","veterinarian"})
+@Table(indexes = {
+        @Index(name = "idx_appointment_status_date", columnList = "status, appointment_date"),
+        @Index(name = "idx_appointment_date_id", columnList = "appointment_date, id")
+})
 public class Appointment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeSortedId
     private Long id;
     private String reason;
     @JsonFormat(pattern = "yyyy-MM-dd")
@@ -0,0 +1,24 @@
+package com.dailycodework.universalpetcare.model;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Number of appointments currently in a status, kept in step with the appointment table
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AppointmentStatusCount {
+    @Id
+    @Enumerated(EnumType.STRING)
+    private AppointmentStatus status;
+    private long total;
+}
@@ -1,5 +1,6 @@
 package com.dailycodework.universalpetcare.model;
 
+import com.dailycodework.universalpetcare.utils.TimeSortedId;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -16,7 +17,7 @@ import lombok.Setter;
 public class Pet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeSortedId
     private Long id;
     private String name;
     private String type;
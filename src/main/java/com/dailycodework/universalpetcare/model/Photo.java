@@ -6,7 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.sql.Blob;
+// Metadata only; the bytes are kept by PhotoStorage under contentHash
 @Getter
 @Setter
 @Entity
@@ -18,6 +18,7 @@ public class Photo {
     private Long id;
     private String fileType;
     private String fileName;
-    @Lob
-    private Blob image;
+    @Column(length = 64)
+    private String contentHash;
+    private Long fileSize;
 }
@@ -0,0 +1,23 @@
+package com.dailycodework.universalpetcare.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Number of photo rows that point at a piece of stored content; at zero the bytes are reclaimed
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PhotoContentCount {
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+    private long refCount;
+    private long size;
+}
@@ -0,0 +1,28 @@
+package com.dailycodework.universalpetcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// An unfinished resumable photo upload; the bytes received so far sit in a part file
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_photo_upload_user", columnList = "userId"))
+public class PhotoUpload {
+    @Id
+    @Column(length = 36)
+    private String id;
+    private Long userId;
+    private String fileName;
+    private String fileType;
+    private long totalSize;
+    private long receivedSize;
+    private LocalDateTime updatedAt;
+}
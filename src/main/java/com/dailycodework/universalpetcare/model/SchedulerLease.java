@@ -0,0 +1,22 @@
+package com.dailycodework.universalpetcare.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SchedulerLease {
+    @Id
+    private String name;
+    private String owner;
+    private Instant expiresAt;
+}
@@ -2,6 +2,7 @@ package com.dailycodework.universalpetcare.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDate;
@@ -39,7 +40,8 @@ public class User {
    private List<Appointment> appointments = new ArrayList<>();
    @Transient
    private List<Review> reviews = new ArrayList<>();
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    // Lazy: only the photo id (held by the proxy) is needed to link to it
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private Photo photo;
 
     @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.DETACH, CascadeType.MERGE,
@@ -52,6 +54,8 @@ public class User {
                 @Index(name = "idx_user_roles_user", columnList = "user_id"),
                 @Index(name = "idx_user_roles_role", columnList = "role_id")
             })
+    // Listings load the roles of many users; fetch them in batches instead of one select per user
+    @BatchSize(size = 50)
     private  Collection<Role> roles = new HashSet<>();
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE)
@@ -0,0 +1,41 @@
+package com.dailycodework.universalpetcare.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_vet_day_schedule",
+        columnNames = {"veterinarian_id", "schedule_date"}))
+public class VetDaySchedule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "veterinarian_id")
+    private Long veterinarianId;
+    @Column(name = "schedule_date")
+    private LocalDate scheduleDate;
+    // One bit per booked slot, see ScheduleSlots
+    @Column(length = 16)
+    private byte[] bookedSlots = new byte[0];
+
+    public VetDaySchedule(Long veterinarianId, LocalDate scheduleDate) {
+        this.veterinarianId = veterinarianId;
+        this.scheduleDate = scheduleDate;
+    }
+
+    public BitSet slots() {
+        return BitSet.valueOf(bookedSlots);
+    }
+
+    public void slots(BitSet slots) {
+        this.bookedSlots = slots.toByteArray();
+    }
+}
@@ -0,0 +1,25 @@
+package com.dailycodework.universalpetcare.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Running review totals of a vet, kept in step with every review write; the average is derived from them
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class VetRatingAggregate {
+    @Id
+    private Long veterinarianId;
+    private long reviewCount;
+    private long starSum;
+
+    public double getAverageRating() {
+        return reviewCount > 0 ? (double) starSum / reviewCount : 0.0;
+    }
+}
@@ -4,14 +4,21 @@ import com.dailycodework.universalpetcare.enums.AppointmentStatus;
 import com.dailycodework.universalpetcare.model.Appointment;
 import com.dailycodework.universalpetcare.model.User;
 import com.dailycodework.universalpetcare.model.Veterinarian;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRowRepository {
     Appointment findByAppointmentNo(String appointmentNo);
 
     boolean existsByVeterinarianIdAndPatientIdAndStatus(Long veterinarianId, Long reviewerId, AppointmentStatus appointmentStatus);
@@ -19,4 +26,93 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findAllByUserId(@Param("userId") Long userId);
 
     List<Appointment> findByVeterinarianAndAppointmentDate(User veterinarian, LocalDate requestedDate);
+
+    List<Appointment> findByStatusIn(Collection<AppointmentStatus> statuses);
+
+    @Query("SELECT a.status, COUNT(a) FROM Appointment a WHERE a.status IS NOT NULL GROUP BY a.status")
+    List<Object[]> countByStatus();
+
+    @Query("SELECT a.id, a.veterinarian.id, a.appointmentDate, a.appointmentTime FROM Appointment a " +
+            "WHERE a.appointmentDate >= :from AND a.status NOT IN :excluded")
+    List<Object[]> findBookedTimesFrom(@Param("from") LocalDate from,
+                                       @Param("excluded") Collection<AppointmentStatus> excluded);
+
+    @Query("SELECT a.appointmentTime FROM Appointment a WHERE a.veterinarian.id = :vetId " +
+            "AND a.appointmentDate = :date AND a.status NOT IN :excluded")
+    List<LocalTime> findBookedTimes(@Param("vetId") Long vetId,
+                                    @Param("date") LocalDate date,
+                                    @Param("excluded") Collection<AppointmentStatus> excluded);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Appointment a WHERE a.id = :id")
+    Optional<Appointment> findForUpdate(@Param("id") Long id);
+
+    @Query("SELECT a.veterinarian.id FROM Appointment a WHERE a.id = :id")
+    Optional<Long> findVeterinarianIdById(@Param("id") Long id);
+
+    // Status, date and time of one appointment; empty once the row is gone
+    @Query("SELECT a.status, a.appointmentDate, a.appointmentTime FROM Appointment a WHERE a.id = :id")
+    List<Object[]> findTransitionStateById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT a.veterinarian.id FROM Appointment a WHERE a.appointmentDate = :date " +
+            "AND a.status IN :statuses AND a.veterinarian IS NOT NULL")
+    List<Long> findVeterinarianIdsOn(@Param("date") LocalDate date,
+                                     @Param("statuses") Collection<AppointmentStatus> statuses);
+
+    @Query("SELECT a.appointmentTime FROM Appointment a WHERE a.veterinarian.id = :vetId " +
+            "AND a.appointmentDate = :date AND a.status NOT IN :excluded AND a.id <> :appointmentId")
+    List<LocalTime> findBookedTimesOfOthers(@Param("vetId") Long vetId,
+                                            @Param("date") LocalDate date,
+                                            @Param("excluded") Collection<AppointmentStatus> excluded,
+                                            @Param("appointmentId") Long appointmentId);
+
+    // Clears the persistence context so the row is read back with its new status
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = :to WHERE a.id = :id AND a.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") AppointmentStatus from,
+                         @Param("to") AppointmentStatus to);
+
+    // Also guarded by the date and time the transition was planned for, so a stale
+    // entry does nothing once the appointment has been rescheduled
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :to WHERE a.id = :id AND a.status = :from " +
+            "AND a.appointmentDate = :date AND a.appointmentTime = :time")
+    int transitionById(@Param("id") Long id,
+                       @Param("from") AppointmentStatus from,
+                       @Param("to") AppointmentStatus to,
+                       @Param("date") LocalDate date,
+                       @Param("time") LocalTime time);
+
+    // Bulk status transitions: each statement is guarded by the source status and only
+    // touches rows whose date/time window has crossed.
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :to WHERE a.status = :from " +
+            "AND (a.appointmentDate < :today OR (a.appointmentDate = :today AND a.appointmentTime < :cutoff))")
+    int transitionStartedBefore(@Param("from") AppointmentStatus from,
+                                @Param("to") AppointmentStatus to,
+                                @Param("today") LocalDate today,
+                                @Param("cutoff") LocalTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :to WHERE a.status = :from " +
+            "AND a.appointmentDate = :today AND a.appointmentTime < :now AND a.appointmentTime >= :cutoff")
+    int transitionStartedBetween(@Param("from") AppointmentStatus from,
+                                 @Param("to") AppointmentStatus to,
+                                 @Param("today") LocalDate today,
+                                 @Param("cutoff") LocalTime cutoff,
+                                 @Param("now") LocalTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :to WHERE a.status = :from " +
+            "AND (a.appointmentDate > :today OR (a.appointmentDate = :today AND a.appointmentTime > :now))")
+    int transitionNotStarted(@Param("from") AppointmentStatus from,
+                             @Param("to") AppointmentStatus to,
+                             @Param("today") LocalDate today,
+                             @Param("now") LocalTime now);
 }
@@ -0,0 +1,21 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.dto.AppointmentRowDto;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Appointment listings in (appointmentDate, id) order; a null filter is left out of the query
+public interface AppointmentRowRepository {
+
+    // Keyset page; afterDate/afterId are the last row of the previous page, both null for the first page
+    List<AppointmentRowDto> findRowsAfter(AppointmentStatus status, Long vetId, Long patientId,
+                                          LocalDate from, LocalDate to,
+                                          LocalDate afterDate, Long afterId, int limit);
+
+    // Read through a streaming result set; must be consumed inside a transaction and closed
+    Stream<AppointmentRowDto> streamRows(AppointmentStatus status, Long vetId, Long patientId,
+                                         LocalDate from, LocalDate to);
+}
@@ -0,0 +1,93 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.dto.AppointmentRowDto;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/*
+ * Builds the listing query from the filters that are present, so MySQL can use the
+ * (appointment_date, id) or (status, appointment_date) index and seek straight to the
+ * next page with a row comparison instead of scanning past the earlier rows.
+ */
+class AppointmentRowRepositoryImpl implements AppointmentRowRepository {
+    private static final String SELECT_ROWS = "SELECT new com.dailycodework.universalpetcare.dto.AppointmentRowDto(" +
+            "a.id, a.appointmentNo, a.appointmentDate, a.appointmentTime, a.reason, a.status, " +
+            "a.patient.id, a.veterinarian.id) FROM Appointment a WHERE 1 = 1";
+    private static final String ORDER = " ORDER BY a.appointmentDate, a.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Integer.MIN_VALUE makes Connector/J stream row by row; the h2 profile uses a plain size
+    @Value("${appointment.stream.fetch-size:-2147483648}")
+    private int streamFetchSize;
+
+    @Override
+    public List<AppointmentRowDto> findRowsAfter(AppointmentStatus status, Long vetId, Long patientId,
+                                                 LocalDate from, LocalDate to,
+                                                 LocalDate afterDate, Long afterId, int limit) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        StringBuilder jpql = filtered(status, vetId, patientId, from, to, params);
+        if (afterDate != null && afterId != null) {
+            jpql.append(" AND (a.appointmentDate, a.id) > (:afterDate, :afterId)");
+            params.put("afterDate", afterDate);
+            params.put("afterId", afterId);
+        }
+        return query(jpql.append(ORDER), params)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<AppointmentRowDto> streamRows(AppointmentStatus status, Long vetId, Long patientId,
+                                                LocalDate from, LocalDate to) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        StringBuilder jpql = filtered(status, vetId, patientId, from, to, params);
+        return query(jpql.append(ORDER), params)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, streamFetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private static StringBuilder filtered(AppointmentStatus status, Long vetId, Long patientId,
+                                          LocalDate from, LocalDate to, Map<String, Object> params) {
+        StringBuilder jpql = new StringBuilder(SELECT_ROWS);
+        if (status != null) {
+            jpql.append(" AND a.status = :status");
+            params.put("status", status);
+        }
+        if (vetId != null) {
+            jpql.append(" AND a.veterinarian.id = :vetId");
+            params.put("vetId", vetId);
+        }
+        if (patientId != null) {
+            jpql.append(" AND a.patient.id = :patientId");
+            params.put("patientId", patientId);
+        }
+        if (from != null) {
+            jpql.append(" AND a.appointmentDate >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            jpql.append(" AND a.appointmentDate <= :to");
+            params.put("to", to);
+        }
+        return jpql;
+    }
+
+    private TypedQuery<AppointmentRowDto> query(StringBuilder jpql, Map<String, Object> params) {
+        TypedQuery<AppointmentRowDto> query = entityManager.createQuery(jpql.toString(), AppointmentRowDto.class);
+        params.forEach(query::setParameter);
+        return query;
+    }
+}
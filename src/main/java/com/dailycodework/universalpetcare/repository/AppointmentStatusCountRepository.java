@@ -0,0 +1,25 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.AppointmentStatusCount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface AppointmentStatusCountRepository extends JpaRepository<AppointmentStatusCount, AppointmentStatus> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AppointmentStatusCount c SET c.total = c.total + :delta WHERE c.status = :status")
+    int adjust(@Param("status") AppointmentStatus status, @Param("delta") long delta);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM AppointmentStatusCount c")
+    List<AppointmentStatusCount> findAllForUpdate();
+}
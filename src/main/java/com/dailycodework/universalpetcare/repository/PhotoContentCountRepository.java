@@ -0,0 +1,37 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.model.PhotoContentCount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface PhotoContentCountRepository extends JpaRepository<PhotoContentCount, String> {
+
+    // Creates the row or adds delta to it; either way the row stays locked until commit
+    @Modifying
+    @Query(value = "INSERT INTO photo_content_count (content_hash, ref_count, size) VALUES (:hash, :delta, :size) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + :delta", nativeQuery = true)
+    int upsert(@Param("hash") String hash, @Param("delta") long delta, @Param("size") long size);
+
+    @Modifying
+    @Query("UPDATE PhotoContentCount c SET c.refCount = c.refCount - 1 WHERE c.contentHash = :hash")
+    int decrement(@Param("hash") String hash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM PhotoContentCount c WHERE c.contentHash = :hash")
+    Optional<PhotoContentCount> findForUpdate(@Param("hash") String hash);
+
+    // Counts for photos stored before reference counting existed; hashes already counted are left alone
+    @Modifying
+    @Query(value = "INSERT INTO photo_content_count (content_hash, ref_count, size) " +
+            "SELECT p.content_hash, COUNT(*), MAX(p.file_size) FROM photo p " +
+            "WHERE p.content_hash IS NOT NULL AND NOT EXISTS " +
+            "(SELECT 1 FROM photo_content_count c WHERE c.content_hash = p.content_hash) " +
+            "GROUP BY p.content_hash", nativeQuery = true)
+    int backfill();
+}
@@ -1,7 +1,21 @@
 package com.dailycodework.universalpetcare.repository;
 
+import com.dailycodework.universalpetcare.dto.PhotoMetadataDto;
 import com.dailycodework.universalpetcare.model.Photo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface PhotoRepository extends JpaRepository<Photo, Long> {
+    @Query("SELECT new com.dailycodework.universalpetcare.dto.PhotoMetadataDto(p.id, p.fileType, p.fileName, " +
+            "p.contentHash, p.fileSize) FROM Photo p WHERE p.id = :id")
+    Optional<PhotoMetadataDto> findMetadataById(@Param("id") Long id);
+
+    @Query("SELECT new com.dailycodework.universalpetcare.dto.PhotoMetadataDto(p.id, p.fileType, p.fileName, " +
+            "p.contentHash, p.fileSize) FROM Photo p WHERE p.id IN :ids")
+    List<PhotoMetadataDto> findMetadataByIdIn(@Param("ids") Collection<Long> ids);
 }
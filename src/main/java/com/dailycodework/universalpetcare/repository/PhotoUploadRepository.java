@@ -0,0 +1,34 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.model.PhotoUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PhotoUploadRepository extends JpaRepository<PhotoUpload, String> {
+
+    // Bytes the user's unfinished uploads have reserved against their quota
+    @Query("SELECT COALESCE(SUM(u.totalSize), 0) FROM PhotoUpload u WHERE u.userId = :userId")
+    long sumReservedBytes(@Param("userId") Long userId);
+
+    List<PhotoUpload> findByUpdatedAtBefore(LocalDateTime cutoff);
+
+    // Updates only a row that still exists, so a cancelled upload is never written back
+    @Transactional
+    @Modifying
+    @Query("UPDATE PhotoUpload u SET u.receivedSize = :received, u.updatedAt = :updatedAt WHERE u.id = :id")
+    int acknowledge(@Param("id") String id,
+                    @Param("received") long received,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Zero when another request already cancelled or completed the upload
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PhotoUpload u WHERE u.id = :id")
+    int deleteUpload(@Param("id") String id);
+}
@@ -1,10 +1,12 @@
 package com.dailycodework.universalpetcare.repository;
 
+import com.dailycodework.universalpetcare.dto.ReviewRow;
 import com.dailycodework.universalpetcare.model.Review;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -13,19 +15,42 @@ import java.util.Optional;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
 
-    @Query("SELECT r FROM Review r WHERE r.patient.id =:userId OR r.veterinarian.id =:userId ")
-    Page<Review> findAllByUserId(@Param("userId") Long userId, Pageable pageable);
-
     @Query("SELECT r FROM Review r WHERE r.patient.id =:userId OR r.veterinarian.id =:userId ")
     List<Review> findAllByUserId(@Param("userId") Long userId);
 
-    List<Review> findByVeterinarianId(Long veterinarianId);
+    @Query(value = "SELECT r.id AS id, r.stars AS stars, r.feedback AS feedback, " +
+            "r.veterinarian.id AS veterinarianId, r.patient.id AS patientId FROM Review r " +
+            "WHERE r.patient.id = :userId OR r.veterinarian.id = :userId ORDER BY r.id DESC",
+            countQuery = "SELECT COUNT(r) FROM Review r WHERE r.patient.id = :userId OR r.veterinarian.id = :userId")
+    Page<ReviewRow> findRowsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /*
+     * One page of the review feed, newest first: reviews the user received as a vet
+     * and reviews they wrote as a patient. Each branch is a keyset scan of its own
+     * foreign-key index (whose entries end with the id), unlike an OR which can use
+     * neither; the union keeps the page to one statement.
+     */
+    @Query(value = "(SELECT r.id AS id, r.stars AS stars, r.feedback AS feedback, " +
+            "r.veterinarian_id AS veterinarianId, r.reviewer_id AS patientId FROM review r " +
+            "WHERE r.veterinarian_id = :userId AND r.id < :beforeId ORDER BY r.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT r.id AS id, r.stars AS stars, r.feedback AS feedback, " +
+            "r.veterinarian_id AS veterinarianId, r.reviewer_id AS patientId FROM review r " +
+            "WHERE r.reviewer_id = :userId AND r.id < :beforeId ORDER BY r.id DESC LIMIT :limit) " +
+            "ORDER BY id DESC LIMIT :limit", nativeQuery = true)
+    List<ReviewRow> findFeedRows(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+                                 @Param("limit") int limit);
 
     Optional<Review> findByVeterinarianIdAndPatientId(Long veterinarianId, Long reviewerId);
 
-    Long countByVeterinarianId(Long id);
+    @Query("SELECT DISTINCT v.id FROM Review r JOIN r.veterinarian v WHERE r.patient.id = :userId OR v.id = :userId")
+    List<Long> findVeterinarianIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT v.id FROM Review r JOIN r.veterinarian v WHERE r.id = :id")
+    Optional<Long> findVeterinarianIdById(@Param("id") Long id);
 
-    @Query("SELECT r.veterinarian.id as vetId, COUNT(r) as reviewCount, AVG(r.stars) as averageRating FROM Review r GROUP BY r.veterinarian.id")
-    List<Object[]> getReviewStats();
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.id = :id")
+    Optional<Review> findForUpdate(@Param("id") Long id);
 
 }
@@ -0,0 +1,35 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Renews a lease we already hold, or takes over one whose holder let it expire
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.expiresAt = :until " +
+            "WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)")
+    int claim(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("now") Instant now,
+              @Param("until") Instant until);
+
+    // Plain INSERT so a lease created by another node at the same time fails on the primary key
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_lease (name, owner, expires_at) VALUES (:name, :owner, :until)",
+            nativeQuery = true)
+    int create(@Param("name") String name, @Param("owner") String owner, @Param("until") Instant until);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now);
+}
@@ -1,5 +1,6 @@
 package com.dailycodework.universalpetcare.repository;
 
+import com.dailycodework.universalpetcare.dto.UserSummaryDto;
 import com.dailycodework.universalpetcare.model.User;
 import com.dailycodework.universalpetcare.model.Veterinarian;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +43,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
                         "LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
                         "LOWER(u.email) LIKE LOWER(CONCAT('%', :keyword, '%')))")
         List<User> searchUsers(@Param("keyword") String keyword, @Param("role") String role);
+
+        @Query("SELECT new com.dailycodework.universalpetcare.dto.UserSummaryDto(u.id, u.firstName, u.lastName, " +
+                "p.id, p.contentHash) FROM User u LEFT JOIN u.photo p WHERE u.id IN :ids")
+        List<UserSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+        @Query("SELECT u.id FROM User u WHERE u.photo.id = :photoId")
+        Optional<Long> findIdByPhotoId(@Param("photoId") Long photoId);
+
+        // Row lock on the user, so quota checks for one user are serialised
+        @Query(value = "SELECT id FROM `user` WHERE id = :userId FOR UPDATE", nativeQuery = true)
+        Optional<Long> lockById(@Param("userId") Long userId);
 }
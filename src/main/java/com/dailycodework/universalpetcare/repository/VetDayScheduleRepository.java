@@ -0,0 +1,22 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.model.VetDaySchedule;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface VetDayScheduleRepository extends JpaRepository<VetDaySchedule, Long> {
+    Optional<VetDaySchedule> findByVeterinarianIdAndScheduleDate(Long veterinarianId, LocalDate scheduleDate);
+
+    List<VetDaySchedule> findByVeterinarianIdAndScheduleDateBetween(Long veterinarianId, LocalDate from, LocalDate to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM VetDaySchedule s WHERE s.veterinarianId = :vetId AND s.scheduleDate = :date")
+    Optional<VetDaySchedule> findForUpdate(@Param("vetId") Long veterinarianId, @Param("date") LocalDate date);
+}
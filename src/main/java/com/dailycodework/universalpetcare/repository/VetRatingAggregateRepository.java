@@ -0,0 +1,46 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.model.VetRatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface VetRatingAggregateRepository extends JpaRepository<VetRatingAggregate, Long> {
+    String RANKING_ROWS = "SELECT v.id, v.firstName, v.lastName, v.specialization, p.id, a.reviewCount, a.starSum " +
+            "FROM VetRatingAggregate a JOIN Veterinarian v ON v.id = a.veterinarianId LEFT JOIN v.photo p " +
+            "WHERE a.reviewCount > 0 ";
+
+    // Creates the row or adds the deltas to it; either way the row stays locked until commit
+    @Modifying
+    @Query(value = "INSERT INTO vet_rating_aggregate (veterinarian_id, review_count, star_sum) " +
+            "VALUES (:vetId, :countDelta, :starDelta) ON DUPLICATE KEY UPDATE " +
+            "review_count = review_count + :countDelta, star_sum = star_sum + :starDelta", nativeQuery = true)
+    int upsert(@Param("vetId") Long vetId, @Param("countDelta") long countDelta, @Param("starDelta") long starDelta);
+
+    // Rows for vets reviewed before aggregates existed; vets already counted are left alone
+    @Modifying
+    @Query(value = "INSERT INTO vet_rating_aggregate (veterinarian_id, review_count, star_sum) " +
+            "SELECT r.veterinarian_id, COUNT(*), SUM(r.stars) FROM review r " +
+            "WHERE r.veterinarian_id IS NOT NULL AND NOT EXISTS " +
+            "(SELECT 1 FROM vet_rating_aggregate a WHERE a.veterinarian_id = r.veterinarian_id) " +
+            "GROUP BY r.veterinarian_id", nativeQuery = true)
+    int backfill();
+
+    // Recomputes every row from the review table (one index lookup per vet)
+    @Modifying
+    @Query(value = "UPDATE vet_rating_aggregate a SET " +
+            "review_count = (SELECT COUNT(*) FROM review r WHERE r.veterinarian_id = a.veterinarian_id), " +
+            "star_sum = (SELECT COALESCE(SUM(r.stars), 0) FROM review r WHERE r.veterinarian_id = a.veterinarian_id)",
+            nativeQuery = true)
+    int recount();
+
+    // Every reviewed vet with what the ranking shows: id, names, specialization, photo id, count, star sum
+    @Query(RANKING_ROWS)
+    List<Object[]> findRankingRows();
+
+    @Query(RANKING_ROWS + "AND v.id = :vetId")
+    List<Object[]> findRankingRow(@Param("vetId") Long vetId);
+}
@@ -1,5 +1,6 @@
 package com.dailycodework.universalpetcare.repository;
 
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
 import com.dailycodework.universalpetcare.model.Veterinarian;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -10,7 +11,9 @@ import java.time.LocalTime;
 import com.dailycodework.universalpetcare.dto.VetSummaryDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface VeterinarianRepository extends JpaRepository<Veterinarian, Long> {
         // Projection with DTO.
@@ -55,25 +58,34 @@ public interface VeterinarianRepository extends JpaRepository<Veterinarian, Long
         @Query("SELECT v.specialization as specialization, COUNT(v) as count FROM Veterinarian v GROUP BY v.specialization")
         List<Object[]> countVetsBySpecialization();
 
+        // Same rule as VetAvailabilityIndex: appointments in the excluded statuses do not hold the vet
         @Query("SELECT v FROM Veterinarian v WHERE v.specialization = :specialization " +
                         "AND v.id NOT IN (" +
                         "  SELECT a.veterinarian.id FROM Appointment a " +
                         "  WHERE a.appointmentDate = :date " +
                         "  AND a.appointmentTime < :maxTime " +
                         "  AND a.appointmentTime > :minTime" +
+                        "  AND a.status NOT IN :excluded" +
                         ")")
         List<Veterinarian> findAvailableVeterinarians(@Param("specialization") String specialization,
                         @Param("date") LocalDate date,
                         @Param("minTime") LocalTime minTime,
-                        @Param("maxTime") LocalTime maxTime);
+                        @Param("maxTime") LocalTime maxTime,
+                        @Param("excluded") Collection<AppointmentStatus> excluded);
 
         @Query("SELECT v FROM Veterinarian v WHERE v.id NOT IN (" +
                         "  SELECT a.veterinarian.id FROM Appointment a " +
                         "  WHERE a.appointmentDate = :date " +
                         "  AND a.appointmentTime < :maxTime " +
                         "  AND a.appointmentTime > :minTime" +
+                        "  AND a.status NOT IN :excluded" +
                         ")")
         List<Veterinarian> findAllAvailableVeterinarians(@Param("date") LocalDate date,
                         @Param("minTime") LocalTime minTime,
-                        @Param("maxTime") LocalTime maxTime);
+                        @Param("maxTime") LocalTime maxTime,
+                        @Param("excluded") Collection<AppointmentStatus> excluded);
+
+        // Row lock on the vet only, so bookings for one vet are serialised without blocking other vets
+        @Query(value = "SELECT id FROM veterinarian WHERE id = :vetId FOR UPDATE", nativeQuery = true)
+        Optional<Long> lockById(@Param("vetId") Long vetId);
 }
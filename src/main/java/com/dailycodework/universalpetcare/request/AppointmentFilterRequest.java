@@ -0,0 +1,19 @@
+package com.dailycodework.universalpetcare.request;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Optional query-string filters for appointment listings; null means "any"
+@Data
+public class AppointmentFilterRequest {
+    private AppointmentStatus status;
+    private Long vetId;
+    private Long patientId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+}
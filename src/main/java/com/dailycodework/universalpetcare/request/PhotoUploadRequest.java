@@ -0,0 +1,12 @@
+package com.dailycodework.universalpetcare.request;
+
+import lombok.Data;
+
+// Opens a resumable upload of a photo of totalSize bytes for the user
+@Data
+public class PhotoUploadRequest {
+    private Long userId;
+    private String fileName;
+    private String contentType;
+    private long totalSize;
+}
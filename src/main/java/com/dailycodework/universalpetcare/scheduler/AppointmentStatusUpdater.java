@@ -1,36 +1,65 @@
 package com.dailycodework.universalpetcare.scheduler;
 
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
 import com.dailycodework.universalpetcare.service.appointment.IAppointmentService;
+import com.dailycodework.universalpetcare.service.appointment.StatusTransitionResult;
+import com.dailycodework.universalpetcare.service.schedule.IVetScheduleService;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class AppointmentStatusUpdater {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentStatusUpdater.class);
+    private static final String SWEEP_LEASE = "appointment-status-sweep";
     private final IAppointmentService appointmentService;
+    private final SchedulerLeaseManager leaseManager;
+    private final IVetScheduleService scheduleService;
 
+    @Value("${appointment.status.sweep-lease-ttl:PT25M}")
+    private Duration sweepLeaseTtl;
 
-      /* In the cron expression "0 0/5 * 1/1 * ?", each field represents
-        a different unit of time.
-         Here's the breakdown:
-
-        Seconds: "0" - The task will run at 0 seconds of the minute.
-        Minutes: "0/5" - The task will run every 5 minutes, starting from the 0th minute.
-        Hours: Any * - The task can run at any hour.
-        Day of month: "1/1" - The task can run on any day of the month.
-        Month: Any * - The task can run in any month.
-        Day of week: Any - The task can run on any day of the week.
-        As a result, the task will run every 5 minutes, starting from the 0th minute, every
-        hour, every day of the month, every month, and every day of the week.    */
-
-    @Scheduled(cron = "0 0/2 * 1/1 * ?")
+    /*
+     * Runs on appointment.status.sweep-cron, every 30 minutes by default
+     * ("0 0/30 * * * ?": second 0, every 30th minute of every hour and day).
+     * Transitions are fired on time by AppointmentTransitionQueue; this sweep only
+     * reconciles rows changed outside this instance, so it runs far less often.
+     */
+    @Scheduled(cron = "${appointment.status.sweep-cron:0 0/30 * * * ?}")
     public void automateAppointmentStatusUpdate(){
-        List<Long> appointmentIds = appointmentService.getAppointmentIds();
-        for(Long appointmentId : appointmentIds){
-            appointmentService.setAppointmentStatus(appointmentId);
+        // In cluster mode only the node holding the lease sweeps
+        if (!leaseManager.tryAcquire(SWEEP_LEASE, sweepLeaseTtl)) {
+            log.debug("Skipping appointment status sweep, lease held by another node");
+            return;
+        }
+        try {
+            List<StatusTransitionResult> results = appointmentService.applyStatusTransitions();
+            for (StatusTransitionResult result : results) {
+                if (result.updated() > 0) {
+                    log.info("Appointment status {} -> {}: {} row(s) in {} ms",
+                            result.from(), result.to(), result.updated(), result.durationMillis());
+                } else {
+                    log.debug("Appointment status {} -> {}: no rows in {} ms",
+                            result.from(), result.to(), result.durationMillis());
+                }
+            }
+            // Declined bookings free their slots; only today's bitsets matter, earlier days can't be booked
+            boolean released = results.stream()
+                    .anyMatch(result -> result.updated() > 0 && AppointmentStatus.SLOT_RELEASING.contains(result.to()));
+            if (released) {
+                scheduleService.refreshReleasedDay(LocalDate.now(SystemUtils.CLINIC_ZONE));
+            }
+        } finally {
+            leaseManager.release(SWEEP_LEASE);
         }
     }
 }
@@ -0,0 +1,231 @@
+package com.dailycodework.universalpetcare.scheduler;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.service.appointment.AppointmentStatusCounter;
+import com.dailycodework.universalpetcare.service.schedule.IVetScheduleService;
+import com.dailycodework.universalpetcare.service.veterinarian.VetAvailabilityIndex;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+
+/*
+ * Keeps every non-terminal appointment keyed by the instant of its next status
+ * transition and arms a single timer for the earliest one. Nothing runs while
+ * no transition is due; when one is, only that row is updated.
+ * In cluster mode every node keeps its own queue, but only the node holding the
+ * queue lease fires; the others put their due entries back for RETRY_DELAY, by
+ * which time the guarded UPDATE is a no-op for rows the holder already moved.
+ */
+@Component
+@RequiredArgsConstructor
+public class AppointmentTransitionQueue {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentTransitionQueue.class);
+    private static final String QUEUE_LEASE = "appointment-transition-queue";
+    private static final Duration ON_GOING_WINDOW = Duration.ofMinutes(2);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Set<AppointmentStatus> TRACKED_STATUSES = EnumSet.of(
+            AppointmentStatus.WAITING_FOR_APPROVAL,
+            AppointmentStatus.APPROVED,
+            AppointmentStatus.UP_COMING,
+            AppointmentStatus.ON_GOING);
+
+    private final AppointmentRepository appointmentRepository;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final AppointmentStatusCounter statusCounter;
+    private final SchedulerLeaseManager leaseManager;
+    private final VetAvailabilityIndex availabilityIndex;
+    private final IVetScheduleService scheduleService;
+
+    @Value("${appointment.status.queue-lease-ttl:PT1M}")
+    private Duration queueLeaseTtl;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparing(Entry::dueAt));
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private ScheduledFuture<?> timer;
+    private Instant timerDueAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveAppointments() {
+        List<Appointment> appointments = appointmentRepository.findByStatusIn(TRACKED_STATUSES);
+        appointments.forEach(this::schedule);
+        log.info("Tracking {} active appointment(s) for status transitions", appointments.size());
+    }
+
+    /*
+     * Re-plans the next transition of an appointment after it was created or changed.
+     * Inside a transaction this is deferred until commit so the timer never sees
+     * uncommitted state.
+     */
+    public void track(Appointment appointment) {
+        SystemUtils.afterCommit(() -> schedule(appointment));
+    }
+
+    public synchronized void untrack(Long appointmentId) {
+        entries.remove(appointmentId);
+    }
+
+    private void schedule(Appointment appointment) {
+        schedule(appointment.getId(), appointment.getStatus(),
+                appointment.getAppointmentDate(), appointment.getAppointmentTime());
+    }
+
+    private synchronized void schedule(Long id, AppointmentStatus status, LocalDate date, LocalTime time) {
+        Instant start = date.atTime(time).atZone(SystemUtils.CLINIC_ZONE).toInstant();
+        Instant dueAt = nextTransitionAt(status, start, Instant.now());
+        if (dueAt == null) {
+            entries.remove(id);
+            return;
+        }
+        Entry entry = new Entry(id, status, start, dueAt);
+        entries.put(id, entry);
+        queue.add(entry);
+        armTimer();
+    }
+
+    private synchronized void reschedule(Entry entry, Instant dueAt) {
+        if (entries.get(entry.id()) != entry) {
+            return;
+        }
+        Entry retry = new Entry(entry.id(), entry.status(), entry.start(), dueAt);
+        entries.put(entry.id(), retry);
+        queue.add(retry);
+        armTimer();
+    }
+
+    private void armTimer() {
+        Entry head = peekLive();
+        if (head == null) {
+            return;
+        }
+        if (timer != null && !timer.isDone() && !timerDueAt.isAfter(head.dueAt())) {
+            return;
+        }
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        timerDueAt = head.dueAt();
+        timer = taskScheduler.schedule(this::fireDueTransitions, timerDueAt);
+    }
+
+    private Entry peekLive() {
+        Entry head = queue.peek();
+        while (head != null && entries.get(head.id()) != head) {
+            queue.poll();
+            head = queue.peek();
+        }
+        return head;
+    }
+
+    private synchronized List<Entry> pollDue(Instant now) {
+        List<Entry> due = new ArrayList<>();
+        Entry head = peekLive();
+        while (head != null && !head.dueAt().isAfter(now)) {
+            due.add(queue.poll());
+            head = peekLive();
+        }
+        return due;
+    }
+
+    private void fireDueTransitions() {
+        Instant now = Instant.now();
+        List<Entry> due = pollDue(now);
+        if (!due.isEmpty()) {
+            if (leaseManager.tryAcquire(QUEUE_LEASE, queueLeaseTtl)) {
+                try {
+                    due.forEach(entry -> fire(entry, now));
+                } finally {
+                    leaseManager.release(QUEUE_LEASE);
+                }
+            } else {
+                log.debug("Deferring {} appointment transition(s), queue lease held by another node", due.size());
+                due.forEach(entry -> reschedule(entry, now.plus(RETRY_DELAY)));
+            }
+        }
+        synchronized (this) {
+            timer = null;
+            armTimer();
+        }
+    }
+
+    private void fire(Entry entry, Instant now) {
+        AppointmentStatus target = targetStatus(entry.status(), entry.start(), now);
+        LocalDate date = LocalDate.ofInstant(entry.start(), SystemUtils.CLINIC_ZONE);
+        LocalTime time = LocalTime.ofInstant(entry.start(), SystemUtils.CLINIC_ZONE);
+        try {
+            Integer updated = transactionTemplate.execute(tx -> {
+                int rows = appointmentRepository.transitionById(entry.id(), entry.status(), target, date, time);
+                statusCounter.recordTransition(entry.status(), target, rows);
+                if (rows > 0 && AppointmentStatus.SLOT_RELEASING.contains(target)) {
+                    appointmentRepository.findVeterinarianIdById(entry.id())
+                            .ifPresent(vetId -> scheduleService.refreshDay(vetId, date));
+                }
+                return rows;
+            });
+            synchronized (this) {
+                if (entries.get(entry.id()) != entry) {
+                    return;
+                }
+                entries.remove(entry.id());
+            }
+            if (updated != null && updated > 0) {
+                log.debug("Appointment {} moved {} -> {}", entry.id(), entry.status(), target);
+                if (AppointmentStatus.SLOT_RELEASING.contains(target)) {
+                    availabilityIndex.evict(entry.id());
+                }
+                schedule(entry.id(), target, date, time);
+            } else {
+                // Moved by the sweep, another node or a reschedule; plan from where the row is now
+                appointmentRepository.findTransitionStateById(entry.id()).stream().findFirst()
+                        .ifPresent(row -> schedule(entry.id(), (AppointmentStatus) row[0],
+                                (LocalDate) row[1], (LocalTime) row[2]));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not move appointment {} to {}: {}", entry.id(), target, e.getMessage());
+            reschedule(entry, now.plus(RETRY_DELAY));
+        }
+    }
+
+    // Same rules as the bulk transitions in AppointmentService, expressed as instants
+    static Instant nextTransitionAt(AppointmentStatus status, Instant start, Instant now) {
+        if (status == null) {
+            return null;
+        }
+        return switch (status) {
+            case WAITING_FOR_APPROVAL -> start;
+            case APPROVED -> start.isAfter(now) ? now : null;
+            case UP_COMING -> start.plus(ON_GOING_WINDOW).isBefore(now) ? now : start;
+            case ON_GOING -> start.plus(ON_GOING_WINDOW);
+            default -> null;
+        };
+    }
+
+    static AppointmentStatus targetStatus(AppointmentStatus status, Instant start, Instant now) {
+        return switch (status) {
+            case WAITING_FOR_APPROVAL -> AppointmentStatus.NOT_APPROVED;
+            case APPROVED -> AppointmentStatus.UP_COMING;
+            case UP_COMING -> start.plus(ON_GOING_WINDOW).isBefore(now)
+                    ? AppointmentStatus.COMPLETED : AppointmentStatus.ON_GOING;
+            default -> AppointmentStatus.COMPLETED;
+        };
+    }
+
+    private record Entry(Long id, AppointmentStatus status, Instant start, Instant dueAt) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.dailycodework.universalpetcare.scheduler;
+
+import com.dailycodework.universalpetcare.repository.SchedulerLeaseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/*
+ * Decides which node runs a scheduled job when several instances share one database.
+ * A node runs the job only while it holds the job's lease row; a lease that is not
+ * renewed before it expires can be taken over by any other node.
+ */
+@Component
+public class SchedulerLeaseManager {
+    private final SchedulerLeaseRepository leaseRepository;
+    private final Clock clock;
+    private final boolean clusterMode;
+    private final String nodeId;
+
+    public SchedulerLeaseManager(SchedulerLeaseRepository leaseRepository,
+                                 Clock clock,
+                                 @Value("${scheduler.cluster-mode:false}") boolean clusterMode,
+                                 @Value("${scheduler.node-id:}") String nodeId) {
+        this.leaseRepository = leaseRepository;
+        this.clock = clock;
+        this.clusterMode = clusterMode;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    public boolean tryAcquire(String leaseName, Duration ttl) {
+        if (!clusterMode) {
+            return true;
+        }
+        Instant now = clock.instant();
+        Instant until = now.plus(ttl);
+        if (leaseRepository.claim(leaseName, nodeId, now, until) > 0) {
+            return true;
+        }
+        if (leaseRepository.existsById(leaseName)) {
+            return false;
+        }
+        try {
+            return leaseRepository.create(leaseName, nodeId, until) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the lease first
+            return false;
+        }
+    }
+
+    // Ends our lease early so the next run on any node does not have to wait for it to expire
+    public void release(String leaseName) {
+        if (clusterMode) {
+            leaseRepository.release(leaseName, nodeId, clock.instant());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
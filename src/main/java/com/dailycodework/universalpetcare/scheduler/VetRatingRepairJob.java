@@ -0,0 +1,35 @@
+package com.dailycodework.universalpetcare.scheduler;
+
+import com.dailycodework.universalpetcare.service.review.VetRatingAggregator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Rating aggregates are maintained on every review write; this only repairs drift (e.g. rows edited by hand)
+@Component
+@RequiredArgsConstructor
+public class VetRatingRepairJob {
+    private static final Logger log = LoggerFactory.getLogger(VetRatingRepairJob.class);
+    private static final String REPAIR_LEASE = "vet-rating-repair";
+    private final VetRatingAggregator ratingAggregator;
+    private final SchedulerLeaseManager leaseManager;
+
+    @Value("${review.rating.repair-lease-ttl:PT30M}")
+    private Duration repairLeaseTtl;
+
+    @Scheduled(cron = "${review.rating.repair-cron:0 40 3 * * ?}")
+    public void repairRatingAggregates() {
+        if (!leaseManager.tryAcquire(REPAIR_LEASE, repairLeaseTtl)) {
+            log.debug("Skipping rating aggregate repair, lease held by another node");
+            return;
+        }
+        long started = System.currentTimeMillis();
+        int rows = ratingAggregator.repair();
+        log.info("Recomputed {} vet rating aggregate(s) in {} ms", rows, System.currentTimeMillis() - started);
+    }
+}
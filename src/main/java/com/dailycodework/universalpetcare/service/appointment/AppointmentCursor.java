@@ -0,0 +1,31 @@
+package com.dailycodework.universalpetcare.service.appointment;
+
+import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position after the last row of a page in (appointmentDate, id) order, sent to clients as an opaque token
+record AppointmentCursor(LocalDate date, Long id) {
+
+    String encode() {
+        String raw = date + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static AppointmentCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('_');
+            return new AppointmentCursor(LocalDate.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException(FeedBackMessage.INVALID_CURSOR);
+        }
+    }
+}
@@ -1,83 +1,92 @@
 package com.dailycodework.universalpetcare.service.appointment;
 
 import com.dailycodework.universalpetcare.dto.AppointmentDto;
+import com.dailycodework.universalpetcare.dto.AppointmentRowDto;
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
 import com.dailycodework.universalpetcare.dto.EntityConverter;
 import com.dailycodework.universalpetcare.dto.PetDto;
 import com.dailycodework.universalpetcare.enums.AppointmentStatus;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
 import com.dailycodework.universalpetcare.model.Appointment;
 import com.dailycodework.universalpetcare.model.Pet;
-import com.dailycodework.universalpetcare.model.User;
 import com.dailycodework.universalpetcare.repository.AppointmentRepository;
 import com.dailycodework.universalpetcare.repository.UserRepository;
+import com.dailycodework.universalpetcare.request.AppointmentFilterRequest;
 import com.dailycodework.universalpetcare.request.AppointmentUpdateRequest;
 import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
-import com.dailycodework.universalpetcare.service.pet.IPetService;
+import com.dailycodework.universalpetcare.scheduler.AppointmentTransitionQueue;
+import com.dailycodework.universalpetcare.service.schedule.IVetScheduleService;
+import com.dailycodework.universalpetcare.service.veterinarian.VetAvailabilityIndex;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AppointmentService implements IAppointmentService {
     private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
+    private static final Duration ON_GOING_WINDOW = Duration.ofMinutes(2);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
-    private final IPetService petService;
     private final EntityConverter<Appointment, AppointmentDto> entityConverter;
     private final EntityConverter<Pet, PetDto> petEntityConverter;
+    private final AppointmentTransitionQueue transitionQueue;
+    private final VetAvailabilityIndex availabilityIndex;
+    private final IVetScheduleService scheduleService;
+    private final AppointmentStatusCounter statusCounter;
+
+    @Value("${appointment.stream.max-duration:PT2M}")
+    private Duration streamMaxDuration;
 
     @Transactional
     @Override
     public Appointment createAppointment(BookAppointmentRequest request, Long senderId, Long recipientId) {
-        Optional<User> sender = userRepository.findById(senderId);
-        Optional<User> recipient = userRepository.findById(recipientId);
-        if (sender.isPresent() && recipient.isPresent()) {
-
-            Appointment appointment = request.getAppointment();
-            List<Pet> pets = request.getPets();
-            pets.forEach(pet -> pet.setAppointment(appointment));
-            List<Pet> savedPets = petService.savePetsForAppointment(pets);
-            appointment.setPets(savedPets);
-
-            appointment.addPatient(sender.get());
-            appointment.addVeterinarian(recipient.get());
-            appointment.setAppointmentNo();
-            appointment.setStatus(AppointmentStatus.WAITING_FOR_APPROVAL);
-
-            // Validate Appointment Date and Time
-            java.time.ZoneId vietnamZone = java.time.ZoneId.of("Asia/Ho_Chi_Minh");
-            LocalDate currentDate = LocalDate.now(vietnamZone);
-            LocalTime currentTime = LocalTime.now(vietnamZone);
-            LocalDate appointmentDate = appointment.getAppointmentDate();
-            LocalTime appointmentTime = appointment.getAppointmentTime();
-
-            if (appointmentDate.isBefore(currentDate)) {
-                throw new IllegalArgumentException(FeedBackMessage.INVALID_APPOINTMENT_DATE);
-            }
-            if (appointmentDate.equals(currentDate) && appointmentTime.isBefore(currentTime)) {
-                throw new IllegalArgumentException(FeedBackMessage.INVALID_APPOINTMENT_TIME);
-            }
-
-            LocalTime startTime = LocalTime.of(8, 0);
-            LocalTime endTime = LocalTime.of(18, 0);
+        Appointment appointment = request.getAppointment();
 
-            if (appointmentTime.isBefore(startTime) || appointmentTime.isAfter(endTime)) {
-                throw new IllegalArgumentException(FeedBackMessage.INVALID_APPOINTMENT_HOURS);
-            }
+        LocalDate appointmentDate = appointment.getAppointmentDate();
+        LocalTime appointmentTime = appointment.getAppointmentTime();
+        validateAppointmentTime(appointmentDate, appointmentTime);
 
-            return appointmentRepository.save(appointment);
+        if (!userRepository.existsById(senderId)) {
+            throw new ResourceNotFoundException(FeedBackMessage.SENDER_RECIPIENT_NOT_FOUND);
         }
-        throw new ResourceNotFoundException(FeedBackMessage.SENDER_RECIPIENT_NOT_FOUND);
+        // Claim the slot before anything is written so a losing request leaves no rows behind.
+        // The vet row lock taken here also checks that the recipient exists.
+        scheduleService.reserve(recipientId, appointmentDate, appointmentTime);
+
+        // Only the foreign keys are needed, so attach proxies instead of loading both users
+        appointment.setPatient(userRepository.getReferenceById(senderId));
+        appointment.setVeterinarian(userRepository.getReferenceById(recipientId));
+        appointment.setAppointmentNo();
+        appointment.setStatus(AppointmentStatus.WAITING_FOR_APPROVAL);
+
+        List<Pet> pets = request.getPets() != null ? request.getPets() : new ArrayList<>();
+        pets.forEach(pet -> pet.setAppointment(appointment));
+        appointment.setPets(pets);
+
+        // Pets are inserted by the cascade together with the appointment
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        statusCounter.recordCreated(savedAppointment.getStatus());
+        transitionQueue.track(savedAppointment);
+        availabilityIndex.update(savedAppointment);
+        return savedAppointment;
     }
 
     @Override
@@ -85,27 +94,123 @@ public class AppointmentService implements IAppointmentService {
         return appointmentRepository.findAll();
     }
 
+    @Override
+    public CursorPageDto<AppointmentRowDto> getAppointmentPage(AppointmentFilterRequest filter, String cursor, Integer size) {
+        int limit = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        AppointmentCursor after = AppointmentCursor.decode(cursor);
+        // One extra row tells us whether there is a next page without a COUNT query
+        List<AppointmentRowDto> rows = appointmentRepository.findRowsAfter(filter.getStatus(), filter.getVetId(),
+                filter.getPatientId(), filter.getFrom(), filter.getTo(),
+                after != null ? after.date() : null, after != null ? after.id() : null, limit + 1);
+        if (rows.size() <= limit) {
+            return new CursorPageDto<>(rows, null);
+        }
+        List<AppointmentRowDto> page = new ArrayList<>(rows.subList(0, limit));
+        AppointmentRowDto last = page.get(limit - 1);
+        return new CursorPageDto<>(page, new AppointmentCursor(last.getAppointmentDate(), last.getId()).encode());
+    }
+
+    /*
+     * Hands every matching row to the sink as it comes off the JDBC cursor. Rows are
+     * DTO projections, so nothing accumulates in the persistence context either.
+     * The export holds a pooled connection until it ends, so it is cut off after
+     * appointment.stream.max-duration; a write blocked on a client that stopped
+     * reading is bounded by the server's connection timeout.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAppointments(AppointmentFilterRequest filter, Consumer<AppointmentRowDto> sink) {
+        long deadline = System.nanoTime() + streamMaxDuration.toNanos();
+        try (Stream<AppointmentRowDto> rows = appointmentRepository.streamRows(filter.getStatus(), filter.getVetId(),
+                filter.getPatientId(), filter.getFrom(), filter.getTo())) {
+            rows.forEach(row -> {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException(FeedBackMessage.APPOINTMENT_STREAM_TIMEOUT);
+                }
+                sink.accept(row);
+            });
+        }
+    }
+
+    /*
+     * A new date or time goes through the same vet lock and overlap check as a new
+     * booking, so a reschedule cannot land on a slot taken in the meantime.
+     */
+    @Transactional
     @Override
     public Appointment updateAppointment(Long id, AppointmentUpdateRequest request) {
-        Appointment existingAppointment = getAppointmentById(id);
+        // Row lock first (then the vet lock), the same order as queued transitions
+        Appointment existingAppointment = appointmentRepository.findForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.APPOINTMENT_NOT_FOUND));
         if (!Objects.equals(existingAppointment.getStatus(), AppointmentStatus.WAITING_FOR_APPROVAL)) {
             throw new IllegalStateException(FeedBackMessage.APPOINTMENT_UPDATE_NOT_ALLOWED);
         }
-        existingAppointment.setAppointmentDate(LocalDate.parse(request.getAppointmentDate()));
-        existingAppointment.setAppointmentTime(LocalTime.parse(request.getAppointmentTime()));
+        LocalDate previousDate = existingAppointment.getAppointmentDate();
+        LocalDate newDate = LocalDate.parse(request.getAppointmentDate());
+        LocalTime newTime = LocalTime.parse(request.getAppointmentTime());
+        boolean moved = !Objects.equals(previousDate, newDate)
+                || !Objects.equals(existingAppointment.getAppointmentTime(), newTime);
+        if (moved && existingAppointment.getVeterinarian() != null) {
+            validateAppointmentTime(newDate, newTime);
+            scheduleService.checkMove(existingAppointment.getVeterinarian().getId(), id, newDate, newTime);
+        }
+        existingAppointment.setAppointmentDate(newDate);
+        existingAppointment.setAppointmentTime(newTime);
         existingAppointment.setReason(request.getReason());
-        return appointmentRepository.save(existingAppointment);
+        Appointment updatedAppointment = appointmentRepository.saveAndFlush(existingAppointment);
+        if (moved) {
+            refreshVetSchedule(updatedAppointment, updatedAppointment.getAppointmentDate());
+            if (!Objects.equals(previousDate, updatedAppointment.getAppointmentDate())) {
+                refreshVetSchedule(updatedAppointment, previousDate);
+            }
+        }
+        transitionQueue.track(updatedAppointment);
+        availabilityIndex.update(updatedAppointment);
+        return updatedAppointment;
     }
 
+    @Transactional
     @Override
     public void deleteAppointment(Long id) {
         appointmentRepository.findById(id)
-                .ifPresentOrElse(appointmentRepository::delete, () -> {
+                .ifPresentOrElse(appointment -> {
+                    appointmentRepository.delete(appointment);
+                    statusCounter.recordDeleted(appointment.getStatus());
+                    refreshVetSchedule(appointment, appointment.getAppointmentDate());
+                    transitionQueue.untrack(id);
+                    availabilityIndex.evict(id);
+                }, () -> {
                     throw new ResourceNotFoundException(FeedBackMessage.APPOINTMENT_NOT_FOUND);
                 });
 
     }
 
+    private void validateAppointmentTime(LocalDate appointmentDate, LocalTime appointmentTime) {
+        java.time.ZoneId vietnamZone = java.time.ZoneId.of("Asia/Ho_Chi_Minh");
+        LocalDate currentDate = LocalDate.now(vietnamZone);
+        LocalTime currentTime = LocalTime.now(vietnamZone);
+
+        if (appointmentDate.isBefore(currentDate)) {
+            throw new IllegalArgumentException(FeedBackMessage.INVALID_APPOINTMENT_DATE);
+        }
+        if (appointmentDate.equals(currentDate) && appointmentTime.isBefore(currentTime)) {
+            throw new IllegalArgumentException(FeedBackMessage.INVALID_APPOINTMENT_TIME);
+        }
+
+        LocalTime startTime = LocalTime.of(8, 0);
+        LocalTime endTime = LocalTime.of(18, 0);
+
+        if (appointmentTime.isBefore(startTime) || appointmentTime.isAfter(endTime)) {
+            throw new IllegalArgumentException(FeedBackMessage.INVALID_APPOINTMENT_HOURS);
+        }
+    }
+
+    private void refreshVetSchedule(Appointment appointment, LocalDate date) {
+        if (appointment.getVeterinarian() != null && date != null) {
+            scheduleService.refreshDay(appointment.getVeterinarian().getId(), date);
+        }
+    }
+
     @Override
     public Appointment getAppointmentById(Long id) {
         return appointmentRepository.findById(id)
@@ -131,50 +236,61 @@ public class AppointmentService implements IAppointmentService {
                 }).toList();
     }
 
+    @Transactional
     @Override
     public Appointment cancelAppointment(Long appointmentId) {
-        return appointmentRepository.findById(appointmentId)
-                .filter(appointment -> appointment.getStatus().equals(AppointmentStatus.WAITING_FOR_APPROVAL))
-                .map(appointment -> {
-                    appointment.setStatus(AppointmentStatus.CANCELLED);
-                    return appointmentRepository.saveAndFlush(appointment);
-                }).orElseThrow(() -> new IllegalStateException(FeedBackMessage.APPOINTMENT_UPDATE_NOT_ALLOWED));
-
+        return decide(appointmentId, AppointmentStatus.CANCELLED, FeedBackMessage.APPOINTMENT_UPDATE_NOT_ALLOWED);
     }
 
+    @Transactional
     @Override
     public Appointment approveAppointment(Long appointmentId) {
-        return appointmentRepository.findById(appointmentId)
-                .filter(appointment -> appointment.getStatus().equals(AppointmentStatus.WAITING_FOR_APPROVAL))
-                .map(appointment -> {
-                    appointment.setStatus(AppointmentStatus.APPROVED);
-                    return appointmentRepository.saveAndFlush(appointment);
-                }).orElseThrow(() -> new IllegalStateException(FeedBackMessage.ACTION_NOT_ALLOWED));
-
+        return decide(appointmentId, AppointmentStatus.APPROVED, FeedBackMessage.ACTION_NOT_ALLOWED);
     }
 
+    @Transactional
     @Override
     public Appointment declineAppointment(Long appointmentId) {
-        return appointmentRepository.findById(appointmentId)
-                .filter(appointment -> appointment.getStatus().equals(AppointmentStatus.WAITING_FOR_APPROVAL))
-                .map(appointment -> {
-                    appointment.setStatus(AppointmentStatus.NOT_APPROVED);
-                    return appointmentRepository.saveAndFlush(appointment);
-                }).orElseThrow(() -> new IllegalStateException(FeedBackMessage.ACTION_NOT_ALLOWED));
+        return decide(appointmentId, AppointmentStatus.NOT_APPROVED, FeedBackMessage.ACTION_NOT_ALLOWED);
+    }
 
+    /*
+     * Moves a waiting appointment with one guarded UPDATE, so of two concurrent
+     * decisions only one changes the row and only that one is counted.
+     */
+    private Appointment decide(Long appointmentId, AppointmentStatus target, String notAllowedMessage) {
+        int updated = appointmentRepository.transitionStatus(appointmentId, AppointmentStatus.WAITING_FOR_APPROVAL, target);
+        if (updated == 0) {
+            throw new IllegalStateException(notAllowedMessage);
+        }
+        statusCounter.recordTransition(AppointmentStatus.WAITING_FOR_APPROVAL, target, updated);
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.APPOINTMENT_NOT_FOUND));
+        if (AppointmentStatus.SLOT_RELEASING.contains(target)) {
+            refreshVetSchedule(appointment, appointment.getAppointmentDate());
+            availabilityIndex.update(appointment);
+        }
+        transitionQueue.track(appointment);
+        return appointment;
     }
 
     @Override
     public long countAppointment() {
-        return appointmentRepository.count();
+        return statusCounter.getCounts().values().stream().mapToLong(Long::longValue).sum();
     }
 
     @Override
     public List<Map<String, Object>> getAppointmentSummary() {
-        return getAllAppointments()
-                .stream()
-                .collect(Collectors.groupingBy(Appointment::getStatus, Collectors.counting()))
-                .entrySet()
+        return toStatusSummary(statusCounter.getCounts());
+    }
+
+    @Override
+    public List<Map<String, Object>> rebuildAppointmentSummary() {
+        return toStatusSummary(statusCounter.rebuild());
+    }
+
+    private List<Map<String, Object>> toStatusSummary(Map<AppointmentStatus, Long> counts) {
+        return counts.entrySet()
                 .stream()
                 .filter(entry -> entry.getValue() > 0)
                 .map(entry -> createStatusSummaryMap(entry.getKey(), entry.getValue()))
@@ -192,66 +308,37 @@ public class AppointmentService implements IAppointmentService {
         return appointmentStatus.toString().replace("_", "-").toLowerCase();
     }
 
+    @Transactional
     @Override
-    public List<Long> getAppointmentIds() {
-        List<Appointment> appointments = appointmentRepository.findAll();
-        return appointments.stream()
-                .map(Appointment::getId)
-                .collect(Collectors.toList());
+    public List<StatusTransitionResult> applyStatusTransitions() {
+        LocalDate today = LocalDate.now(SystemUtils.CLINIC_ZONE);
+        LocalTime now = LocalTime.now(SystemUtils.CLINIC_ZONE);
+        // An appointment stays ON_GOING for a short window after its start time
+        LocalTime endCutoff = now.isBefore(LocalTime.MIN.plus(ON_GOING_WINDOW))
+                ? LocalTime.MIN : now.minus(ON_GOING_WINDOW);
+
+        // Ordered so that a row moves at most one step per run
+        List<StatusTransitionResult> results = new ArrayList<>();
+        results.add(runTransition(AppointmentStatus.ON_GOING, AppointmentStatus.COMPLETED,
+                (from, to) -> appointmentRepository.transitionStartedBefore(from, to, today, endCutoff)));
+        results.add(runTransition(AppointmentStatus.UP_COMING, AppointmentStatus.COMPLETED,
+                (from, to) -> appointmentRepository.transitionStartedBefore(from, to, today, endCutoff)));
+        results.add(runTransition(AppointmentStatus.UP_COMING, AppointmentStatus.ON_GOING,
+                (from, to) -> appointmentRepository.transitionStartedBetween(from, to, today, endCutoff, now)));
+        results.add(runTransition(AppointmentStatus.APPROVED, AppointmentStatus.UP_COMING,
+                (from, to) -> appointmentRepository.transitionNotStarted(from, to, today, now)));
+        results.add(runTransition(AppointmentStatus.WAITING_FOR_APPROVAL, AppointmentStatus.NOT_APPROVED,
+                (from, to) -> appointmentRepository.transitionStartedBefore(from, to, today, now)));
+        return results;
     }
 
-    @Override
-    public void setAppointmentStatus(Long appointmentId) {
-        Appointment appointment = getAppointmentById(appointmentId);
-        // Use Vietnam Timezone for accurate scheduling
-        LocalDate currentDate = LocalDate.now(java.time.ZoneId.of("Asia/Ho_Chi_Minh"));
-        LocalTime currentTime = LocalTime.now(java.time.ZoneId.of("Asia/Ho_Chi_Minh"));
-
-        LocalTime appointmentEndTime = appointment.getAppointmentTime()
-                .plusMinutes(2).truncatedTo(ChronoUnit.MINUTES);
-
-        switch (appointment.getStatus()) {
-            case APPROVED:
-                if (currentDate.isBefore(appointment.getAppointmentDate()) ||
-                        (currentDate.equals(appointment.getAppointmentDate())
-                                && currentTime.isBefore(appointment.getAppointmentTime()))) {
-                    appointment.setStatus(AppointmentStatus.UP_COMING);
-                    // If already UP_COMING, no change needed.
-                }
-                break;
-
-            case UP_COMING:
-                if (currentDate.equals(appointment.getAppointmentDate())) {
-                    if (currentTime.isAfter(appointment.getAppointmentTime())
-                            && !currentTime.isAfter(appointmentEndTime)) {
-                        appointment.setStatus(AppointmentStatus.ON_GOING);
-                    } else if (currentTime.isAfter(appointmentEndTime)) {
-                        // Missed "ON_GOING" window? Mark as COMPLETED directly.
-                        appointment.setStatus(AppointmentStatus.COMPLETED);
-                    }
-                } else if (currentDate.isAfter(appointment.getAppointmentDate())) {
-                    // Day passed
-                    appointment.setStatus(AppointmentStatus.COMPLETED);
-                }
-                break;
-
-            case ON_GOING:
-                if (currentDate.isAfter(appointment.getAppointmentDate()) ||
-                        (currentDate.equals(appointment.getAppointmentDate())
-                                && !currentTime.isBefore(appointmentEndTime))) {
-                    appointment.setStatus(AppointmentStatus.COMPLETED);
-                }
-                break;
-
-            case WAITING_FOR_APPROVAL:
-                if (currentDate.isAfter(appointment.getAppointmentDate()) ||
-                        (currentDate.equals(appointment.getAppointmentDate())
-                                && currentTime.isAfter(appointment.getAppointmentTime()))) {
-                    appointment.setStatus(AppointmentStatus.NOT_APPROVED);
-                }
-                break;
-        }
-        appointmentRepository.save(appointment);
+    private StatusTransitionResult runTransition(AppointmentStatus from, AppointmentStatus to,
+                                                 ToIntBiFunction<AppointmentStatus, AppointmentStatus> update) {
+        long start = System.nanoTime();
+        int updated = update.applyAsInt(from, to);
+        statusCounter.recordTransition(from, to, updated);
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new StatusTransitionResult(from, to, updated, durationMillis);
     }
 
 }
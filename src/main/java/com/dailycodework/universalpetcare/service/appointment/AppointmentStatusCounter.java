@@ -0,0 +1,148 @@
+package com.dailycodework.universalpetcare.service.appointment;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.AppointmentStatusCount;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.AppointmentStatusCountRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Per-status appointment totals. Every status change records a delta here; the
+ * deltas of one transaction are merged and written just before it commits, so
+ * the counters commit or roll back together with the appointments, and the hot
+ * counter rows stay locked only for the commit itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class AppointmentStatusCounter {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentStatusCounter.class);
+
+    private final AppointmentStatusCountRepository countRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (countRepository.count() < AppointmentStatus.values().length) {
+            log.info("Appointment status counters rebuilt: {}", rebuildCounts());
+        }
+    }
+
+    public void recordCreated(AppointmentStatus status) {
+        record(null, status, 1);
+    }
+
+    public void recordDeleted(AppointmentStatus status) {
+        record(status, null, 1);
+    }
+
+    public void recordTransition(AppointmentStatus from, AppointmentStatus to, long count) {
+        record(from, to, count);
+    }
+
+    public Map<AppointmentStatus, Long> getCounts() {
+        Map<AppointmentStatus, Long> counts = new EnumMap<>(AppointmentStatus.class);
+        countRepository.findAll().forEach(row -> counts.put(row.getStatus(), row.getTotal()));
+        return counts;
+    }
+
+    /*
+     * Recounts from the appointment table. The counter rows are locked first, so
+     * writers that already recorded a delta have committed and are included in the
+     * count, and writers that have not wait and apply theirs on top afterwards.
+     */
+    @Transactional
+    public Map<AppointmentStatus, Long> rebuild() {
+        return rebuildCounts();
+    }
+
+    private Map<AppointmentStatus, Long> rebuildCounts() {
+        Map<AppointmentStatus, AppointmentStatusCount> rows = countRepository.findAllForUpdate().stream()
+                .collect(Collectors.toMap(AppointmentStatusCount::getStatus, Function.identity()));
+        Map<AppointmentStatus, Long> actual = new EnumMap<>(AppointmentStatus.class);
+        for (Object[] row : appointmentRepository.countByStatus()) {
+            actual.put((AppointmentStatus) row[0], (Long) row[1]);
+        }
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            AppointmentStatusCount row = rows.getOrDefault(status, new AppointmentStatusCount(status, 0));
+            row.setTotal(actual.getOrDefault(status, 0L));
+            countRepository.save(row);
+        }
+        return actual;
+    }
+
+    private void record(AppointmentStatus from, AppointmentStatus to, long count) {
+        if (count == 0 || Objects.equals(from, to)) {
+            return;
+        }
+        Map<AppointmentStatus, Long> deltas = pendingDeltas();
+        if (from != null) {
+            deltas.merge(from, -count, Long::sum);
+        }
+        if (to != null) {
+            deltas.merge(to, count, Long::sum);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(deltas);
+        }
+    }
+
+    private Map<AppointmentStatus, Long> pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new EnumMap<>(AppointmentStatus.class);
+        }
+        @SuppressWarnings("unchecked")
+        Map<AppointmentStatus, Long> deltas = (Map<AppointmentStatus, Long>) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            Map<AppointmentStatus, Long> created = new EnumMap<>(AppointmentStatus.class);
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(AppointmentStatusCounter.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(AppointmentStatusCounter.this, created);
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    apply(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AppointmentStatusCounter.this);
+                }
+            });
+            deltas = created;
+        }
+        return deltas;
+    }
+
+    // EnumMap iterates in declaration order, so concurrent writers lock the rows in the same order
+    private void apply(Map<AppointmentStatus, Long> deltas) {
+        deltas.forEach((status, delta) -> {
+            if (delta != 0) {
+                countRepository.adjust(status, delta);
+            }
+        });
+        deltas.clear();
+    }
+}
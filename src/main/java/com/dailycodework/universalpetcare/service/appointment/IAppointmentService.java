@@ -1,16 +1,25 @@
 package com.dailycodework.universalpetcare.service.appointment;
 
 import com.dailycodework.universalpetcare.dto.AppointmentDto;
+import com.dailycodework.universalpetcare.dto.AppointmentRowDto;
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
 import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.request.AppointmentFilterRequest;
 import com.dailycodework.universalpetcare.request.AppointmentUpdateRequest;
 import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface IAppointmentService {
     Appointment createAppointment(BookAppointmentRequest appointment, Long sender, Long recipient);
     List<Appointment> getAllAppointments();
+
+    CursorPageDto<AppointmentRowDto> getAppointmentPage(AppointmentFilterRequest filter, String cursor, Integer size);
+
+    void streamAppointments(AppointmentFilterRequest filter, Consumer<AppointmentRowDto> sink);
+
     Appointment updateAppointment(Long id, AppointmentUpdateRequest request);
 
 
@@ -28,7 +37,7 @@ public interface IAppointmentService {
 
     List<Map<String, Object>> getAppointmentSummary();
 
-    List<Long> getAppointmentIds();
+    List<Map<String, Object>> rebuildAppointmentSummary();
 
-    void setAppointmentStatus(Long appointmentId);
+    List<StatusTransitionResult> applyStatusTransitions();
 }
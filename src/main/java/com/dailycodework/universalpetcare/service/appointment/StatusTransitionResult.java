@@ -0,0 +1,6 @@
+package com.dailycodework.universalpetcare.service.appointment;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+
+public record StatusTransitionResult(AppointmentStatus from, AppointmentStatus to, int updated, long durationMillis) {
+}
@@ -0,0 +1,192 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/*
+ * Keeps each image as <dir>/<first two hex chars>/<sha-256> and its variants as
+ * <sha-256>-<variant> beside it. Files are written to a temp file and renamed
+ * into place, so a reader never sees a partly written one. Resumable uploads
+ * grow <dir>/uploads/<upload id>.part until they are complete.
+ */
+@Component
+public class FileSystemPhotoStorage implements PhotoStorage {
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}(-[0-9]{1,5})?");
+    private static final Pattern STAGING_ID = Pattern.compile("stage-[0-9]+\\.tmp");
+    private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final Path root;
+    private final Path incoming;
+    private final Path uploads;
+
+    public FileSystemPhotoStorage(@Value("${photo.storage.dir:./data/photos}") String directory) throws IOException {
+        this.root = Path.of(directory).toAbsolutePath().normalize();
+        this.incoming = Files.createDirectories(root.resolve("incoming"));
+        this.uploads = Files.createDirectories(root.resolve("uploads"));
+    }
+
+    @Override
+    public StagedContent stage(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(incoming, "stage-", ".tmp");
+        try (InputStream in = new DigestInputStream(content, digest)) {
+            long size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            return new StagedContent(HexFormat.of().formatHex(digest.digest()), size, temp.getFileName().toString());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    public void publish(StagedContent content) throws IOException {
+        Path target = pathOf(content.hash());
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            Files.move(stagingOf(content), target, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @Override
+    public void discard(StagedContent content) throws IOException {
+        Files.deleteIfExists(stagingOf(content));
+    }
+
+    @Override
+    public void storeVariant(String hash, int variant, InputStream content) throws IOException {
+        Path temp = Files.createTempFile(incoming, "variant-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Path target = pathOf(PhotoStorage.variantKey(hash, variant));
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(pathOf(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(pathOf(key));
+    }
+
+    @Override
+    public void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathOf(key), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    throw new EOFException("Photo content " + key + " is shorter than expected");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(pathOf(key));
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        Path original = pathOf(hash);
+        Files.deleteIfExists(original);
+        if (Files.isDirectory(original.getParent())) {
+            try (DirectoryStream<Path> variants = Files.newDirectoryStream(original.getParent(), hash + "-*")) {
+                for (Path variant : variants) {
+                    Files.deleteIfExists(variant);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long appendPart(String uploadId, long offset, InputStream content) throws IOException {
+        try (FileChannel channel = FileChannel.open(partOf(uploadId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < offset) {
+                throw new IllegalStateException("Upload " + uploadId + " holds fewer than " + offset + " bytes");
+            }
+            channel.truncate(offset);
+            channel.position(offset);
+            try {
+                content.transferTo(Channels.newOutputStream(channel));
+            } finally {
+                // Whatever reached the file is durable before it is acknowledged
+                channel.force(false);
+            }
+            return channel.size();
+        }
+    }
+
+    @Override
+    public long partSize(String uploadId) throws IOException {
+        Path part = partOf(uploadId);
+        return Files.exists(part) ? Files.size(part) : 0;
+    }
+
+    @Override
+    public StagedContent stagePart(String uploadId) throws IOException {
+        try (InputStream in = Files.newInputStream(partOf(uploadId))) {
+            return stage(in);
+        }
+    }
+
+    @Override
+    public void deletePart(String uploadId) throws IOException {
+        Files.deleteIfExists(partOf(uploadId));
+    }
+
+    private Path stagingOf(StagedContent content) {
+        if (!STAGING_ID.matcher(content.stagingId()).matches()) {
+            throw new IllegalArgumentException("Invalid staging id: " + content.stagingId());
+        }
+        return incoming.resolve(content.stagingId());
+    }
+
+    private Path partOf(String uploadId) {
+        if (uploadId == null || !UPLOAD_ID.matcher(uploadId).matches()) {
+            throw new IllegalArgumentException("Invalid upload id: " + uploadId);
+        }
+        return uploads.resolve(uploadId + ".part");
+    }
+
+    private Path pathOf(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid photo content key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,15 +1,35 @@
 package com.dailycodework.universalpetcare.service.photo;
 
+import com.dailycodework.universalpetcare.dto.PhotoCacheStatsDto;
+import com.dailycodework.universalpetcare.dto.PhotoMetadataDto;
+import com.dailycodework.universalpetcare.dto.PhotoSummaryDto;
 import com.dailycodework.universalpetcare.model.Photo;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 
 public interface IPhotoService {
     Photo savePhoto(MultipartFile file, Long userId) throws IOException, SQLException;
+    // Makes content already in storage (a finished resumable upload) the user's photo
+    Photo saveUploadedPhoto(Long userId, StagedContent content, String fileName, String fileType) throws IOException;
     Photo getPhotoById(Long id);
     void deletePhoto(Long id, Long userId) throws SQLException;
     Photo updatePhoto(Long id, MultipartFile file) throws SQLException, IOException;
     byte[] getImageData(Long id) throws SQLException;
+    PhotoCacheStatsDto getCacheStats();
+    // Metadata and ready-made thumbnails of many photos from one query, in the order asked; unknown ids are left out
+    List<PhotoSummaryDto> getPhotoSummaries(Collection<Long> ids, int thumbnailSize);
+
+    // Metadata of a photo whose bytes are available in storage, migrating a legacy BLOB first if needed
+    PhotoMetadataDto getStoredPhotoMetadata(Long id);
+    // Key of the bytes a request for this size is served from; also the ETag
+    String contentKey(PhotoMetadataDto photo, Integer size);
+    // Original or resized variant (made now if missing); falls back to the original
+    PhotoContent getPhotoContent(PhotoMetadataDto photo, Integer size);
+    // Copies count bytes from position on, from the byte cache or the stored file
+    void writeImage(PhotoContent content, long position, long count, WritableByteChannel target) throws IOException;
 }
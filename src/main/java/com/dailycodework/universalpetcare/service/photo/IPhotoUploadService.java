@@ -0,0 +1,15 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.dto.PhotoUploadDto;
+import com.dailycodework.universalpetcare.request.PhotoUploadRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface IPhotoUploadService {
+    PhotoUploadDto startUpload(PhotoUploadRequest request);
+    PhotoUploadDto getUpload(String uploadId);
+    // Appends a chunk at offset (the acknowledged size); the last chunk turns the upload into the user's photo
+    PhotoUploadDto appendChunk(String uploadId, long offset, InputStream chunk) throws IOException;
+    void cancelUpload(String uploadId) throws IOException;
+}
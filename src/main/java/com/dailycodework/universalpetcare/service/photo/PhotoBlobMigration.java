@@ -0,0 +1,132 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Moves images that are still in the legacy photo.image BLOB column into the
+ * PhotoStorage, a batch of rows at a time, and clears the column. Runs once at
+ * startup (idempotent: finished rows have a content_hash) and on demand for a
+ * single photo that is requested before its batch was reached.
+ */
+@Component
+@RequiredArgsConstructor
+public class PhotoBlobMigration {
+    private static final Logger log = LoggerFactory.getLogger(PhotoBlobMigration.class);
+    private static final int BATCH_SIZE = 10;
+    private static final String PENDING_IDS = "SELECT id FROM photo WHERE content_hash IS NULL AND image IS NOT NULL AND ";
+    private static final String PENDING_IMAGE = "SELECT image FROM photo WHERE id = ? AND content_hash IS NULL AND image IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PhotoStorage photoStorage;
+    private final PhotoContentRegistry contentRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${photo.storage.migrate-blobs:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateAll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long lastId = 0;
+            int moved = 0;
+            Batch batch;
+            while ((batch = moveBatch("id > ? ORDER BY id LIMIT " + BATCH_SIZE, lastId)).seen() > 0) {
+                lastId = batch.lastId();
+                moved += batch.moved();
+            }
+            if (moved > 0) {
+                log.info("Moved {} photo(s) from the database to photo storage", moved);
+            }
+        } catch (BadSqlGrammarException e) {
+            // Schema created after the switch: there is no legacy image column
+            log.debug("No legacy photo BLOB column to migrate");
+        }
+    }
+
+    public boolean migrate(Long photoId) {
+        try {
+            return moveBatch("id = ?", photoId).moved() > 0;
+        } catch (BadSqlGrammarException e) {
+            return false;
+        }
+    }
+
+    private Batch moveBatch(String condition, Object... args) {
+        List<Long> ids = jdbcTemplate.queryForList(PENDING_IDS + condition, Long.class, args);
+        long lastId = ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+        Map<Long, StagedContent> staged = new LinkedHashMap<>();
+        Integer moved;
+        try {
+            /*
+             * One query per image: MySQL Connector/J buffers a whole result set by
+             * default, so a multi-row query would hold every BLOB of the batch on the
+             * heap. This way the driver holds at most one while it is copied to disk.
+             */
+            for (Long id : ids) {
+                jdbcTemplate.query(PENDING_IMAGE, (RowCallbackHandler) rs -> {
+                    try (InputStream in = rs.getBinaryStream("image")) {
+                        staged.put(id, photoStorage.stage(in));
+                    } catch (IOException e) {
+                        log.warn("Could not move photo {} to storage: {}", id, e.getMessage());
+                    }
+                }, id);
+            }
+            if (staged.isEmpty()) {
+                return new Batch(ids.size(), 0, lastId);
+            }
+            // Each moved row takes a reference on its content; a row migrated meanwhile gives it back
+            moved = transactionTemplate.execute(status -> {
+                int rows = 0;
+                for (Map.Entry<Long, StagedContent> entry : staged.entrySet()) {
+                    StagedContent content = entry.getValue();
+                    try {
+                        contentRegistry.acquire(content);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    int updated = jdbcTemplate.update("UPDATE photo SET content_hash = ?, file_size = ?, image = NULL " +
+                            "WHERE id = ? AND content_hash IS NULL", content.hash(), content.size(), entry.getKey());
+                    if (updated == 0) {
+                        contentRegistry.release(content.hash());
+                    }
+                    rows += updated;
+                }
+                return rows;
+            });
+        } finally {
+            staged.values().forEach(this::discard);
+        }
+        return new Batch(ids.size(), moved == null ? 0 : moved, lastId);
+    }
+
+    private void discard(StagedContent content) {
+        try {
+            photoStorage.discard(content);
+        } catch (IOException e) {
+            log.warn("Could not remove staged photo {}: {}", content.stagingId(), e.getMessage());
+        }
+    }
+
+    private record Batch(int seen, int moved, long lastId) {
+    }
+}
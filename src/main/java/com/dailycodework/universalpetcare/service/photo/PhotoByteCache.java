@@ -0,0 +1,82 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.dto.PhotoCacheStatsDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/*
+ * Keeps the bytes of frequently read photos in memory, weighed by their length
+ * under a hard byte cap (W-TinyLFU eviction). Entries are keyed by content key
+ * (the hash, or the variant key of a thumbnail), so a cached value can never go
+ * stale; updates and deletes only evict it to give the memory back.
+ */
+@Component
+public class PhotoByteCache {
+    // A single entry may take at most this share of the cache, so one large upload cannot flush it
+    private static final int MAX_ENTRY_SHARE = 16;
+
+    private final Cache<String, byte[]> cache;
+    private final long maxBytes;
+
+    public PhotoByteCache(@Value("${photo.cache.max-size:16MB}") DataSize maxSize) {
+        this.maxBytes = maxSize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+    }
+
+    public boolean accepts(long size) {
+        return size <= maxBytes / MAX_ENTRY_SHARE;
+    }
+
+    // Concurrent misses for one key share a single load; content too large to cache is loaded each time
+    public byte[] get(String key, long size, ContentLoader loader) throws IOException {
+        if (!accepts(size)) {
+            return loader.load();
+        }
+        try {
+            return cache.get(key, k -> {
+                try {
+                    return loader.load();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Drops the content and any of its variants
+    public void evict(String hash) {
+        cache.invalidate(hash);
+        for (int size : PhotoVariantService.SIZES) {
+            cache.invalidate(PhotoStorage.variantKey(hash, size));
+        }
+    }
+
+    public PhotoCacheStatsDto getStats() {
+        // Eviction runs in the background; settle it so the numbers add up
+        cache.cleanUp();
+        CacheStats stats = cache.stats();
+        long cachedBytes = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new PhotoCacheStatsDto(stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), stats.evictionWeight(), cache.estimatedSize(), cachedBytes, maxBytes);
+    }
+
+    @FunctionalInterface
+    public interface ContentLoader {
+        byte[] load() throws IOException;
+    }
+}
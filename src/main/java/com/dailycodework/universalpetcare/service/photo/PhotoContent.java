@@ -0,0 +1,5 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+// Stored bytes chosen for a response: the original upload or one of its variants
+public record PhotoContent(String key, String contentType, long length) {
+}
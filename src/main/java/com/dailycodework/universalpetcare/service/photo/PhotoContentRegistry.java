@@ -0,0 +1,132 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.model.PhotoContentCount;
+import com.dailycodework.universalpetcare.repository.PhotoContentCountRepository;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/*
+ * Reference counts of stored photo content, one row per hash in
+ * photo_content_count. Identical uploads share one file; it is deleted only when
+ * the last photo row pointing at it is gone.
+ *
+ * Publishing new bytes or a variant and reclaiming unused ones all happen while
+ * holding the hash's count row lock, so a reclaim can never delete a file that a
+ * concurrent upload of the same bytes is about to reference, and never leaves a
+ * variant behind that a resize wrote after it.
+ */
+@Component
+public class PhotoContentRegistry {
+    private static final Logger log = LoggerFactory.getLogger(PhotoContentRegistry.class);
+
+    private final PhotoContentCountRepository countRepository;
+    private final PhotoStorage photoStorage;
+    private final PhotoByteCache byteCache;
+    private final TransactionTemplate ownTransaction;
+
+    public PhotoContentRegistry(PhotoContentCountRepository countRepository, PhotoStorage photoStorage,
+                                PhotoByteCache byteCache, PlatformTransactionManager transactionManager) {
+        this.countRepository = countRepository;
+        this.photoStorage = photoStorage;
+        this.byteCache = byteCache;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Must run before the legacy BLOB migration adds counts of its own
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int added = countRepository.backfill();
+        if (added > 0) {
+            log.info("Counted references for {} stored photo(s)", added);
+        }
+    }
+
+    // Takes a reference for a photo row written in the same transaction and publishes the bytes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void acquire(StagedContent content) throws IOException {
+        try {
+            countRepository.upsert(content.hash(), 1, content.size());
+            photoStorage.publish(content);
+        } finally {
+            photoStorage.discard(content);
+        }
+        // Published bytes nobody ends up referencing are removed again
+        SystemUtils.afterRollback(() -> reclaim(content.hash()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String hash) {
+        if (hash == null) {
+            return;
+        }
+        countRepository.decrement(hash);
+        SystemUtils.afterCommit(() -> reclaim(hash));
+    }
+
+    // Writes a file derived from the content under its row lock; false if the content is no longer referenced
+    public boolean publishDerived(String hash, DerivedWriter writer) throws IOException {
+        try {
+            Boolean written = ownTransaction.execute(status -> {
+                Optional<PhotoContentCount> count = countRepository.findForUpdate(hash);
+                if (count.isEmpty() || count.get().getRefCount() <= 0) {
+                    return false;
+                }
+                try {
+                    writer.write();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+            return Boolean.TRUE.equals(written);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Deletes the content if nothing references it; runs in its own transaction
+    public void reclaim(String hash) {
+        try {
+            ownTransaction.executeWithoutResult(status -> {
+                countRepository.upsert(hash, 0, 0);
+                PhotoContentCount count = countRepository.findForUpdate(hash).orElseThrow();
+                if (count.getRefCount() > 0) {
+                    return;
+                }
+                try {
+                    photoStorage.delete(hash);
+                } catch (IOException e) {
+                    log.warn("Could not delete photo content {}: {}", hash, e.getMessage());
+                    return;
+                }
+                countRepository.delete(count);
+                byteCache.evict(hash);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not reclaim photo content {}: {}", hash, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    public interface DerivedWriter {
+        void write() throws IOException;
+    }
+}
@@ -1,42 +1,80 @@
 package com.dailycodework.universalpetcare.service.photo;
+import com.dailycodework.universalpetcare.dto.PhotoCacheStatsDto;
+import com.dailycodework.universalpetcare.dto.PhotoMetadataDto;
+import com.dailycodework.universalpetcare.dto.PhotoSummaryDto;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
 import com.dailycodework.universalpetcare.model.Photo;
 import com.dailycodework.universalpetcare.model.User;
 import com.dailycodework.universalpetcare.repository.PhotoRepository;
 import com.dailycodework.universalpetcare.repository.UserRepository;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import com.dailycodework.universalpetcare.utils.UrlMapping;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.sql.rowset.serial.SerialBlob;
 import java.io.IOException;
-import java.sql.Blob;
-import java.sql.SQLException;
-import java.util.Optional;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PhotoService implements IPhotoService {
+    private static final Logger log = LoggerFactory.getLogger(PhotoService.class);
+    public static final int MAX_BATCH_SIZE = 100;
+    // Larger variants are only linked, never inlined into a batch response
+    private static final int MAX_INLINE_THUMBNAIL_SIZE = 256;
     private final PhotoRepository photoRepository;
     private final UserRepository userRepository;
+    private final PhotoStorage photoStorage;
+    private final PhotoBlobMigration blobMigration;
+    private final PhotoVariantService variantService;
+    private final PhotoByteCache byteCache;
+    private final PhotoUploadLimits uploadLimits;
+    private final PhotoContentRegistry contentRegistry;
 
 
+    @Transactional
     @Override
-    public Photo savePhoto(MultipartFile file, Long userId) throws IOException, SQLException {
-        Optional<User> theUser = userRepository.findById(userId);
+    public Photo savePhoto(MultipartFile file, Long userId) throws IOException {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.USER_NOT_FOUND));
         Photo photo = new Photo();
         if (file != null && !file.isEmpty()) {
-            byte[] photoBytes = file.getBytes();
-            Blob photoBlob = new SerialBlob(photoBytes);
-            photo.setImage(photoBlob);
-            photo.setFileType(file.getContentType());
-            photo.setFileName(file.getOriginalFilename());
+            storeContent(photo, file, uploadLimits.allowanceFor(userId));
         }
+        return attachPhoto(user, photo);
+    }
+
+    @Transactional
+    @Override
+    public Photo saveUploadedPhoto(Long userId, StagedContent content, String fileName, String fileType)
+            throws IOException {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.USER_NOT_FOUND));
+        Photo photo = new Photo();
+        setContent(photo, content, fileName, fileType);
+        return attachPhoto(user, photo);
+    }
+
+    private Photo attachPhoto(User user, Photo photo) {
         Photo savedPhoto = photoRepository.save(photo);
-        theUser.ifPresent(user -> {user.setPhoto(savedPhoto);});
-        userRepository.save(theUser.get());
+        // The previous photo row is removed by orphanRemoval; its file goes once nothing points at it
+        Photo previousPhoto = user.getPhoto();
+        user.setPhoto(savedPhoto);
+        userRepository.save(user);
+        if (previousPhoto != null) {
+            releaseContent(previousPhoto.getContentHash());
+        }
         return savedPhoto;
     }
 
@@ -48,24 +86,27 @@ public class PhotoService implements IPhotoService {
             throw new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND);
         });
         photoRepository.findById(id)
-                .ifPresentOrElse(photoRepository::delete, ()->{
+                .ifPresentOrElse(photo -> {
+                    photoRepository.delete(photo);
+                    releaseContent(photo.getContentHash());
+                }, ()->{
                     throw new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND);
                 });
 
     }
 
+    @Transactional
     @Override
-    public Photo updatePhoto(Long id, MultipartFile file) throws SQLException, IOException {
+    public Photo updatePhoto(Long id, MultipartFile file) throws IOException {
         Photo photo = getPhotoById(id);
-        if (photo != null) {
-            byte[] photoBytes = file.getBytes();
-            Blob photoBlob = new SerialBlob(photoBytes);
-            photo.setImage(photoBlob);
-            photo.setFileType(file.getContentType());
-            photo.setFileName(file.getOriginalFilename());
-            return photoRepository.save(photo);
-        }
-        throw new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND);
+        String previousHash = photo.getContentHash();
+        long allowance = userRepository.findIdByPhotoId(id)
+                .map(uploadLimits::allowanceFor)
+                .orElse(uploadLimits.getMaxFileSize());
+        storeContent(photo, file, allowance);
+        Photo savedPhoto = photoRepository.save(photo);
+        releaseContent(previousHash);
+        return savedPhoto;
     }
 
     @Override
@@ -75,13 +116,156 @@ public class PhotoService implements IPhotoService {
     }
 
     @Override
-    public byte[] getImageData(Long id) throws SQLException {
-        Photo photo = getPhotoById(id);
-        if (photo != null) {
-            Blob photoBlob = photo.getImage();
-            int blobLength = (int) photoBlob.length();
-            return photoBlob.getBytes(1, blobLength);
+    public PhotoMetadataDto getStoredPhotoMetadata(Long id) {
+        PhotoMetadataDto photo = findMetadata(id);
+        if (photo.getContentHash() == null && blobMigration.migrate(id)) {
+            photo = findMetadata(id);
+        }
+        if (photo.getContentHash() == null) {
+            throw new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND);
+        }
+        return photo;
+    }
+
+    private PhotoMetadataDto findMetadata(Long id) {
+        return photoRepository.findMetadataById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND));
+    }
+
+    @Override
+    public String contentKey(PhotoMetadataDto photo, Integer size) {
+        return size == null ? photo.getContentHash()
+                : PhotoStorage.variantKey(photo.getContentHash(), PhotoVariantService.normalize(size));
+    }
+
+    @Override
+    public PhotoContent getPhotoContent(PhotoMetadataDto photo, Integer size) {
+        if (size != null) {
+            int variant = PhotoVariantService.normalize(size);
+            if (variantService.ensure(photo.getContentHash(), variant)) {
+                String key = PhotoStorage.variantKey(photo.getContentHash(), variant);
+                try {
+                    return new PhotoContent(key, PhotoVariantService.VARIANT_TYPE, photoStorage.size(key));
+                } catch (IOException e) {
+                    log.warn("Could not read photo variant {}: {}", key, e.getMessage());
+                }
+            }
+        }
+        return new PhotoContent(photo.getContentHash(), photo.getFileType(), photo.getFileSize());
+    }
+
+    // Small photos (avatars, thumbnails) are served from the byte cache; larger ones from the file
+    @Override
+    public void writeImage(PhotoContent content, long position, long count, WritableByteChannel target) throws IOException {
+        if (!byteCache.accepts(content.length())) {
+            photoStorage.transferTo(content.key(), position, count, target);
+            return;
+        }
+        byte[] bytes = byteCache.get(content.key(), content.length(), () -> {
+            try (InputStream in = photoStorage.open(content.key())) {
+                return in.readAllBytes();
+            }
+        });
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, (int) position, (int) count);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    @Override
+    public byte[] getImageData(Long id) {
+        PhotoMetadataDto photo = getStoredPhotoMetadata(id);
+        try {
+            return byteCache.get(photo.getContentHash(), photo.getFileSize(), () -> {
+                try (InputStream in = photoStorage.open(photo.getContentHash())) {
+                    return in.readAllBytes();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public PhotoCacheStatsDto getCacheStats() {
+        return byteCache.getStats();
+    }
+
+    @Override
+    public List<PhotoSummaryDto> getPhotoSummaries(Collection<Long> ids, int thumbnailSize) {
+        Set<Long> photoIds = new LinkedHashSet<>(ids);
+        photoIds.remove(null);
+        if (photoIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(FeedBackMessage.PHOTO_BATCH_TOO_LARGE);
         }
-        return null;
+        if (photoIds.isEmpty()) {
+            return List.of();
+        }
+        int variant = PhotoVariantService.normalize(Math.min(thumbnailSize, MAX_INLINE_THUMBNAIL_SIZE));
+        Map<Long, PhotoMetadataDto> photos = photoRepository.findMetadataByIdIn(photoIds).stream()
+                .collect(Collectors.toMap(PhotoMetadataDto::getId, Function.identity()));
+        List<PhotoSummaryDto> summaries = new ArrayList<>(photos.size());
+        for (Long id : photoIds) {
+            PhotoMetadataDto photo = photos.get(id);
+            if (photo != null) {
+                summaries.add(new PhotoSummaryDto(photo.getId(), photo.getFileName(), photo.getFileType(),
+                        photo.getFileSize(), photo.getContentHash(),
+                        UrlMapping.photoUrl(photo.getId(), photo.getContentHash()),
+                        UrlMapping.photoUrl(photo.getId(), photo.getContentHash(), variant),
+                        readThumbnail(photo.getContentHash(), variant)));
+            }
+        }
+        return summaries;
+    }
+
+    /*
+     * Only variants that already exist are inlined, so a batch never waits for a
+     * resize; a missing one is queued and the card falls back to thumbnailUrl.
+     * Legacy BLOB rows (no hash yet) are migrated on their first single-photo GET.
+     */
+    private byte[] readThumbnail(String hash, int variant) {
+        if (hash == null) {
+            return null;
+        }
+        String key = PhotoStorage.variantKey(hash, variant);
+        if (!photoStorage.exists(key)) {
+            variantService.generateAllAsync(hash);
+            return null;
+        }
+        try {
+            return byteCache.get(key, photoStorage.size(key), () -> {
+                try (InputStream in = photoStorage.open(key)) {
+                    return in.readAllBytes();
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not read photo variant {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    // Streams the multipart upload (spooled to disk by the container) straight into storage
+    private void storeContent(Photo photo, MultipartFile file, long maxBytes) throws IOException {
+        PhotoUploadLimits.check(file.getSize(), maxBytes);
+        StagedContent content;
+        try (InputStream in = PhotoUploadLimits.limit(file.getInputStream(), maxBytes)) {
+            content = photoStorage.stage(in);
+        }
+        setContent(photo, content, file.getOriginalFilename(), file.getContentType());
+    }
+
+    // Identical bytes are stored once: the photo takes a reference on the content
+    private void setContent(Photo photo, StagedContent content, String fileName, String fileType) throws IOException {
+        contentRegistry.acquire(content);
+        photo.setContentHash(content.hash());
+        photo.setFileSize(content.size());
+        photo.setFileType(fileType);
+        photo.setFileName(fileName);
+        SystemUtils.afterCommit(() -> variantService.generateAllAsync(content.hash()));
+    }
+
+    // The file goes once no photo row references it any more
+    private void releaseContent(String hash) {
+        contentRegistry.release(hash);
     }
 }
@@ -0,0 +1,52 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+
+/*
+ * Where photo bytes live. Content is addressed by its SHA-256, so identical
+ * uploads share one copy; the photo table only keeps the hash and metadata.
+ * Derived renditions (resized variants) are kept next to the original under
+ * variantKey(hash, variant) and go away with it. Resumable uploads collect
+ * their bytes in a part file that is stored as content once complete.
+ */
+public interface PhotoStorage {
+
+    static String variantKey(String hash, int variant) {
+        return hash + "-" + variant;
+    }
+
+    // Consumes the stream without buffering it in memory into a staging copy, hashing it on the way
+    StagedContent stage(InputStream content) throws IOException;
+
+    // Moves staged bytes under their hash unless already there; the caller holds the hash's reference lock
+    void publish(StagedContent content) throws IOException;
+
+    // Drops the staging copy if it is still there
+    void discard(StagedContent content) throws IOException;
+
+    void storeVariant(String hash, int variant, InputStream content) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    long size(String key) throws IOException;
+
+    // Copies count bytes starting at position into the target channel. Only a file or
+    // socket target gets the kernel-level copy; any other channel is written from a buffer.
+    void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException;
+
+    boolean exists(String key);
+
+    // Removes the content and all of its variants
+    void delete(String hash) throws IOException;
+
+    // Writes the stream into the upload's part file from offset on, dropping anything after offset first
+    long appendPart(String uploadId, long offset, InputStream content) throws IOException;
+
+    long partSize(String uploadId) throws IOException;
+
+    StagedContent stagePart(String uploadId) throws IOException;
+
+    void deletePart(String uploadId) throws IOException;
+}
@@ -0,0 +1,80 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.exception.UploadLimitExceededException;
+import com.dailycodework.universalpetcare.repository.PhotoUploadRepository;
+import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * Upload limits: a cap per file, and a per-user quota shared by the file being
+ * sent and the user's unfinished resumable uploads. Both are enforced on the
+ * stream itself, so an oversized body is cut off at the limit, not after it
+ * has been read in full.
+ */
+@Component
+public class PhotoUploadLimits {
+    private final PhotoUploadRepository uploadRepository;
+    private final long maxFileSize;
+    private final long userQuota;
+
+    public PhotoUploadLimits(PhotoUploadRepository uploadRepository,
+                             @Value("${photo.upload.max-file-size:15MB}") DataSize maxFileSize,
+                             @Value("${photo.upload.user-quota:45MB}") DataSize userQuota) {
+        this.uploadRepository = uploadRepository;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.userQuota = userQuota.toBytes();
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    // Largest file the user may send right now
+    public long allowanceFor(Long userId) {
+        return Math.min(maxFileSize, userQuota - uploadRepository.sumReservedBytes(userId));
+    }
+
+    public static void check(long size, long allowance) {
+        if (size > allowance) {
+            throw new UploadLimitExceededException(FeedBackMessage.PHOTO_TOO_LARGE);
+        }
+    }
+
+    // Fails the read that would go past maxBytes
+    public static InputStream limit(InputStream in, long maxBytes) {
+        return new FilterInputStream(in) {
+            private long remaining = maxBytes;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    consume(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, (int) Math.min(length, remaining + 1));
+                if (n > 0) {
+                    consume(n);
+                }
+                return n;
+            }
+
+            private void consume(int n) {
+                remaining -= n;
+                if (remaining < 0) {
+                    throw new UploadLimitExceededException(FeedBackMessage.PHOTO_TOO_LARGE);
+                }
+            }
+        };
+    }
+}
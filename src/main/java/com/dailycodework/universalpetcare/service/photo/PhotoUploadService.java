@@ -0,0 +1,182 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.dto.PhotoUploadDto;
+import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.model.PhotoUpload;
+import com.dailycodework.universalpetcare.repository.PhotoUploadRepository;
+import com.dailycodework.universalpetcare.repository.UserRepository;
+import com.dailycodework.universalpetcare.request.PhotoUploadRequest;
+import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Resumable photo uploads. The client opens an upload with the total size, then
+ * sends chunks, each starting at the offset acknowledged so far. Bytes go from
+ * the request straight to a part file; if a chunk is cut off, what reached the
+ * disk is acknowledged so the client continues from there. No transaction is
+ * held while a chunk is being read. Progress is written with a guarded update,
+ * so a chunk that finishes after its upload was cancelled cannot bring it back.
+ */
+@Service
+@RequiredArgsConstructor
+public class PhotoUploadService implements IPhotoUploadService {
+    private static final Logger log = LoggerFactory.getLogger(PhotoUploadService.class);
+
+    private final PhotoUploadRepository uploadRepository;
+    private final UserRepository userRepository;
+    private final PhotoStorage photoStorage;
+    private final PhotoUploadLimits uploadLimits;
+    private final IPhotoService photoService;
+    private final TransactionTemplate transactionTemplate;
+    // Uploads with a chunk being written on this instance; a second chunk is refused meanwhile
+    private final Set<String> activeUploads = ConcurrentHashMap.newKeySet();
+
+    @Value("${photo.upload.expiry:PT24H}")
+    private Duration expiry;
+
+    // The user row lock makes the quota check and the reservation one step per user
+    @Transactional
+    @Override
+    public PhotoUploadDto startUpload(PhotoUploadRequest request) {
+        if (request.getTotalSize() <= 0) {
+            throw new IllegalArgumentException(FeedBackMessage.PHOTO_UPLOAD_INVALID_SIZE);
+        }
+        if (userRepository.lockById(request.getUserId()).isEmpty()) {
+            throw new ResourceNotFoundException(FeedBackMessage.USER_NOT_FOUND);
+        }
+        PhotoUploadLimits.check(request.getTotalSize(), uploadLimits.allowanceFor(request.getUserId()));
+        PhotoUpload upload = new PhotoUpload(UUID.randomUUID().toString(), request.getUserId(),
+                request.getFileName(), request.getContentType(), request.getTotalSize(), 0, LocalDateTime.now());
+        uploadRepository.save(upload);
+        return toDto(upload, null);
+    }
+
+    @Override
+    public PhotoUploadDto getUpload(String uploadId) {
+        return toDto(findUpload(uploadId), null);
+    }
+
+    @Override
+    public PhotoUploadDto appendChunk(String uploadId, long offset, InputStream chunk) throws IOException {
+        if (!activeUploads.add(uploadId)) {
+            throw new IllegalStateException(FeedBackMessage.PHOTO_UPLOAD_BUSY);
+        }
+        try {
+            PhotoUpload upload = findUpload(uploadId);
+            // A part file that lost bytes (e.g. restored from an older disk) moves the resume point back
+            long onDisk = photoStorage.partSize(uploadId);
+            if (onDisk < upload.getReceivedSize()) {
+                acknowledge(upload, onDisk);
+            }
+            if (offset != upload.getReceivedSize()) {
+                throw new IllegalStateException(FeedBackMessage.PHOTO_UPLOAD_OFFSET_MISMATCH);
+            }
+            long received;
+            try {
+                received = photoStorage.appendPart(uploadId, offset,
+                        PhotoUploadLimits.limit(chunk, upload.getTotalSize() - offset));
+            } catch (IOException e) {
+                // Connection dropped mid-chunk: keep what was written so the client resumes from there
+                acknowledge(upload, photoStorage.partSize(uploadId));
+                throw e;
+            }
+            acknowledge(upload, received);
+            if (received < upload.getTotalSize()) {
+                return toDto(upload, null);
+            }
+            return complete(upload);
+        } finally {
+            activeUploads.remove(uploadId);
+        }
+    }
+
+    @Override
+    public void cancelUpload(String uploadId) throws IOException {
+        if (uploadRepository.deleteUpload(uploadId) == 0) {
+            throw new ResourceNotFoundException(FeedBackMessage.PHOTO_UPLOAD_NOT_FOUND);
+        }
+        photoStorage.deletePart(uploadId);
+    }
+
+    // Abandoned uploads give their quota and disk space back
+    @Scheduled(cron = "${photo.upload.cleanup-cron:0 15 * * * ?}")
+    public void purgeExpiredUploads() {
+        for (PhotoUpload upload : uploadRepository.findByUpdatedAtBefore(LocalDateTime.now().minus(expiry))) {
+            if (activeUploads.contains(upload.getId())) {
+                continue;
+            }
+            try {
+                uploadRepository.delete(upload);
+                photoStorage.deletePart(upload.getId());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not remove expired upload {}: {}", upload.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Removing the upload row and saving the photo commit together; losing the row to a cancel saves nothing
+    private PhotoUploadDto complete(PhotoUpload upload) throws IOException {
+        StagedContent content = photoStorage.stagePart(upload.getId());
+        Photo photo;
+        try {
+            photo = transactionTemplate.execute(status -> {
+                if (uploadRepository.deleteUpload(upload.getId()) == 0) {
+                    throw new ResourceNotFoundException(FeedBackMessage.PHOTO_UPLOAD_NOT_FOUND);
+                }
+                try {
+                    return photoService.saveUploadedPhoto(upload.getUserId(), content,
+                            upload.getFileName(), upload.getFileType());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            photoStorage.discard(content);
+        }
+        photoStorage.deletePart(upload.getId());
+        return toDto(upload, photo.getId());
+    }
+
+    private void acknowledge(PhotoUpload upload, long received) throws IOException {
+        if (received == upload.getReceivedSize()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (uploadRepository.acknowledge(upload.getId(), received, now) == 0) {
+            // Cancelled while this chunk was being written, which may have recreated the part file
+            photoStorage.deletePart(upload.getId());
+            throw new ResourceNotFoundException(FeedBackMessage.PHOTO_UPLOAD_NOT_FOUND);
+        }
+        upload.setReceivedSize(received);
+        upload.setUpdatedAt(now);
+    }
+
+    private PhotoUpload findUpload(String uploadId) {
+        return uploadRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.PHOTO_UPLOAD_NOT_FOUND));
+    }
+
+    private static PhotoUploadDto toDto(PhotoUpload upload, Long photoId) {
+        return new PhotoUploadDto(upload.getId(), upload.getReceivedSize(), upload.getTotalSize(),
+                photoId != null, photoId);
+    }
+}
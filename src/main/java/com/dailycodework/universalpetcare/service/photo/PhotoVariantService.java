@@ -0,0 +1,216 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/*
+ * Produces downscaled JPEG variants of stored photos (longest side 64, 256 or
+ * 1024 px). Work runs on a small bounded pool so a burst of uploads cannot eat
+ * the heap, and concurrent requests for the same variant share one resize.
+ * Content that cannot be decoded is remembered for a while, so repeated requests
+ * for it do not queue another decode each time.
+ */
+@Service
+public class PhotoVariantService {
+    private static final Logger log = LoggerFactory.getLogger(PhotoVariantService.class);
+    public static final int[] SIZES = {64, 256, 1024};
+    public static final String VARIANT_TYPE = "image/jpeg";
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+    private static final long WAIT_SECONDS = 10;
+    private static final int MAX_REMEMBERED_FAILURES = 10_000;
+
+    private final PhotoStorage photoStorage;
+    private final PhotoContentRegistry contentRegistry;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    // Variant key -> why it could not be made
+    private final Cache<String, String> failures;
+
+    public PhotoVariantService(PhotoStorage photoStorage, PhotoContentRegistry contentRegistry,
+                               @Value("${photo.variants.threads:2}") int threads,
+                               @Value("${photo.variants.queue-capacity:50}") int queueCapacity,
+                               @Value("${photo.variants.failure-ttl:PT10M}") Duration failureTtl) {
+        this.photoStorage = photoStorage;
+        this.contentRegistry = contentRegistry;
+        this.failures = Caffeine.newBuilder()
+                .expireAfterWrite(failureTtl)
+                .maximumSize(MAX_REMEMBERED_FAILURES)
+                .build();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "photo-variants");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Smallest variant that is at least as large as requested, or the largest one
+    public static int normalize(int requested) {
+        for (int size : SIZES) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return SIZES[SIZES.length - 1];
+    }
+
+    // Queues every variant of a fresh upload; anything dropped is made on first request instead
+    public void generateAllAsync(String hash) {
+        for (int size : SIZES) {
+            generate(hash, size);
+        }
+    }
+
+    // Makes sure the variant exists, waiting for (or starting) its resize; false if it cannot be made
+    public boolean ensure(String hash, int size) {
+        if (photoStorage.exists(PhotoStorage.variantKey(hash, size))) {
+            return true;
+        }
+        try {
+            generate(hash, size).get(WAIT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("No {}px variant for photo content {}: {}", size, hash, e.getMessage());
+            return false;
+        }
+    }
+
+    private CompletableFuture<Void> generate(String hash, int size) {
+        String key = PhotoStorage.variantKey(hash, size);
+        String failure = failures.getIfPresent(key);
+        if (failure != null) {
+            return CompletableFuture.failedFuture(new IOException(failure));
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!photoStorage.exists(key)) {
+                        writeVariant(hash, size);
+                    }
+                    created.complete(null);
+                } catch (IOException e) {
+                    // The bytes behind a hash never change, so a source that fails to decode will keep failing
+                    if (photoStorage.exists(hash)) {
+                        failures.put(key, String.valueOf(e.getMessage()));
+                    }
+                    created.completeExceptionally(e);
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private void writeVariant(String hash, int size) throws IOException {
+        BufferedImage source = read(hash, size);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // JPEG has no alpha, so transparent areas are flattened onto white
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        byte[] jpeg = encodeJpeg(target);
+        // Under the content's row lock, so a reclaim that ran during the resize leaves no orphan behind
+        if (!contentRegistry.publishDerived(hash, () -> photoStorage.storeVariant(hash, size, new ByteArrayInputStream(jpeg)))) {
+            throw new IOException("Photo content " + hash + " is no longer stored");
+        }
+    }
+
+    // Decodes with subsampling so a large original is never fully expanded in memory
+    private BufferedImage read(String hash, int size) throws IOException {
+        try (InputStream in = photoStorage.open(hash);
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Not a supported image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    throw new IOException("Image too large to resize: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (size * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,8 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+/*
+ * Image bytes written and hashed (SHA-256, hex) by a PhotoStorage but not yet
+ * published under their hash; stagingId names the staging copy.
+ */
+public record StagedContent(String hash, long size, String stagingId) {
+}
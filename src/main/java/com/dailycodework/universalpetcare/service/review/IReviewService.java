@@ -1,5 +1,7 @@
 package com.dailycodework.universalpetcare.service.review;
 
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
+import com.dailycodework.universalpetcare.dto.ReviewDto;
 import com.dailycodework.universalpetcare.model.Review;
 import com.dailycodework.universalpetcare.request.ReviewUpdateRequest;
 import org.springframework.data.domain.Page;
@@ -7,8 +9,11 @@ import org.springframework.data.domain.Page;
 public interface IReviewService {
     Review saveReview(Review review, Long reviewerId, Long veterinarianId);
     double getAverageRatingForVet(Long veterinarianId);
+    VetRating getRatingForVet(Long veterinarianId);
     Review updateReview(Long reviewerId, ReviewUpdateRequest review);
-    Page<Review> findAllReviewsByUserId(Long userId, int page, int size);
+    Page<ReviewDto> findAllReviewsByUserId(Long userId, int page, int size);
+    // Reviews received and written by the user, newest first; pass the returned cursor for the next page
+    CursorPageDto<ReviewDto> getReviewFeed(Long userId, String cursor, Integer size);
 
     void deleteReview(Long reviewerId);
 }
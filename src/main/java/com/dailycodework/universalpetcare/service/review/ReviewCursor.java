@@ -0,0 +1,26 @@
+package com.dailycodework.universalpetcare.service.review;
+
+import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Id of the last review of a feed page (newest first), sent to clients as an opaque token
+record ReviewCursor(Long id) {
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ReviewCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return new ReviewCursor(Long.parseLong(raw));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(FeedBackMessage.INVALID_CURSOR);
+        }
+    }
+}
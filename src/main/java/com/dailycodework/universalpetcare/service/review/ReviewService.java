@@ -1,5 +1,9 @@
 package com.dailycodework.universalpetcare.service.review;
 
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
+import com.dailycodework.universalpetcare.dto.ReviewDto;
+import com.dailycodework.universalpetcare.dto.ReviewRow;
+import com.dailycodework.universalpetcare.dto.UserSummaryDto;
 import com.dailycodework.universalpetcare.enums.AppointmentStatus;
 import com.dailycodework.universalpetcare.exception.AlreadyExistsException;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
@@ -10,25 +14,32 @@ import com.dailycodework.universalpetcare.repository.ReviewRepository;
 import com.dailycodework.universalpetcare.repository.UserRepository;
 import com.dailycodework.universalpetcare.request.ReviewUpdateRequest;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+import com.dailycodework.universalpetcare.utils.UrlMapping;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ReviewService implements IReviewService {
+    private static final int DEFAULT_FEED_SIZE = 10;
+    private static final int MAX_FEED_SIZE = 50;
     private final ReviewRepository reviewRepository;
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
     private final ModelMapper modelMapper;
+    private final VetRatingAggregator ratingAggregator;
 
 
+    @Transactional
     @Override
     public Review saveReview(Review review, Long reviewerId, Long veterinarianId) {
         if (veterinarianId.equals(reviewerId)) {
@@ -50,49 +61,124 @@ public class ReviewService implements IReviewService {
         User patient = userRepository.findById(reviewerId)
                 .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.VET_OR_PATIENT_NOT_FOUND));
 
+        ratingAggregator.apply(veterinarianId, 1, review.getStars());
         review.setVeterinarian(veterinarian);
         review.setPatient(patient);
         return reviewRepository.save(review);
     }
 
-
-
-
-
-
-    @Transactional(readOnly = true)
     @Override
     public double getAverageRatingForVet(Long veterinarianId) {
-        List<Review> reviews = reviewRepository.findByVeterinarianId(veterinarianId);
-        return reviews.isEmpty() ? 0 : reviews.stream()
-                .mapToInt(Review::getStars)
-                .average()
-                .orElse(0.0);
+        return getRatingForVet(veterinarianId).averageRating();
+    }
+
+    // Served from the vet's rating aggregate (cached briefly), without loading any review
+    @Override
+    public VetRating getRatingForVet(Long veterinarianId) {
+        return ratingAggregator.getRating(veterinarianId);
     }
 
+    @Transactional
     @Override
     public Review updateReview(Long reviewerId, ReviewUpdateRequest review) {
-        return reviewRepository.findById(reviewerId)
-                .map(existingReview -> {
-                    existingReview.setStars(review.getStars());
-                    existingReview.setFeedback(review.getFeedback());
-                    return reviewRepository.save(existingReview);
-                }).orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND));
+        Long veterinarianId = lockRatingOf(reviewerId);
+        Review existingReview = reviewRepository.findForUpdate(reviewerId)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND));
+        if (veterinarianId != null) {
+            ratingAggregator.apply(veterinarianId, 0, review.getStars() - existingReview.getStars());
+        }
+        existingReview.setStars(review.getStars());
+        existingReview.setFeedback(review.getFeedback());
+        return reviewRepository.save(existingReview);
     }
 
     @Override
-    public Page<Review> findAllReviewsByUserId(Long userId, int page, int size) {
-        PageRequest pageRequest = PageRequest.of(page, size);
-        return reviewRepository.findAllByUserId(userId, pageRequest);
+    public Page<ReviewDto> findAllReviewsByUserId(Long userId, int page, int size) {
+        Page<ReviewRow> rows = reviewRepository.findRowsByUserId(userId, PageRequest.of(page, size));
+        return new PageImpl<>(toReviewDtos(rows.getContent()), rows.getPageable(), rows.getTotalElements());
     }
 
+    @Transactional
     @Override
     public void deleteReview(Long reviewerId) {
-        reviewRepository.findById(reviewerId)
-                .ifPresentOrElse(Review::removeRelationShip, () -> {
-                    throw new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND);
-                });
+        Long veterinarianId = lockRatingOf(reviewerId);
+        Review review = reviewRepository.findForUpdate(reviewerId)
+                .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.RESOURCE_NOT_FOUND));
+        if (veterinarianId != null) {
+            ratingAggregator.apply(veterinarianId, -1, -review.getStars());
+        }
+        review.removeRelationShip();
         reviewRepository.deleteById(reviewerId);
     }
 
+    /*
+     * Newest first across reviews the user received as a vet and wrote as a
+     * patient, read with one keyset union (limit + 1 rows tells whether there is
+     * more), so a page costs the same however long the history.
+     */
+    @Override
+    public CursorPageDto<ReviewDto> getReviewFeed(Long userId, String cursor, Integer size) {
+        int limit = size == null ? DEFAULT_FEED_SIZE : Math.min(Math.max(size, 1), MAX_FEED_SIZE);
+        ReviewCursor before = ReviewCursor.decode(cursor);
+        long beforeId = before != null ? before.id() : Long.MAX_VALUE;
+        List<ReviewRow> rows = reviewRepository.findFeedRows(userId, beforeId, limit + 1);
+        if (rows.size() <= limit) {
+            return new CursorPageDto<>(toReviewDtos(rows), null);
+        }
+        List<ReviewRow> page = rows.subList(0, limit);
+        return new CursorPageDto<>(toReviewDtos(page), new ReviewCursor(page.get(limit - 1).getId()).encode());
+    }
+
+    // Names and photos of every user on the page come from a single query
+    private List<ReviewDto> toReviewDtos(List<ReviewRow> rows) {
+        Set<Long> userIds = new HashSet<>();
+        for (ReviewRow row : rows) {
+            if (row.getVeterinarianId() != null) {
+                userIds.add(row.getVeterinarianId());
+            }
+            if (row.getPatientId() != null) {
+                userIds.add(row.getPatientId());
+            }
+        }
+        Map<Long, UserSummaryDto> users = userIds.isEmpty() ? Map.of()
+                : userRepository.findSummariesByIdIn(userIds).stream()
+                .collect(Collectors.toMap(UserSummaryDto::getId, Function.identity()));
+        return rows.stream().map(row -> mapReviewToDto(row, users)).toList();
+    }
+
+    private ReviewDto mapReviewToDto(ReviewRow row, Map<Long, UserSummaryDto> users) {
+        ReviewDto reviewDto = new ReviewDto();
+        reviewDto.setId(row.getId());
+        reviewDto.setStars(row.getStars());
+        reviewDto.setFeedback(row.getFeedback());
+        UserSummaryDto veterinarian = row.getVeterinarianId() != null ? users.get(row.getVeterinarianId()) : null;
+        if (veterinarian != null) {
+            reviewDto.setVeterinarianId(veterinarian.getId());
+            reviewDto.setVeterinarianName(veterinarian.getFirstName() + " " + veterinarian.getLastName());
+            if (veterinarian.getPhotoId() != null) {
+                reviewDto.setVeterinarianPhotoId(veterinarian.getPhotoId());
+                reviewDto.setVeterinarianPhotoUrl(UrlMapping.photoUrl(veterinarian.getPhotoId(), veterinarian.getPhotoHash()));
+            }
+        }
+        UserSummaryDto patient = row.getPatientId() != null ? users.get(row.getPatientId()) : null;
+        if (patient != null) {
+            reviewDto.setPatientId(patient.getId());
+            reviewDto.setPatientName(patient.getFirstName() + " " + patient.getLastName());
+            if (patient.getPhotoId() != null) {
+                reviewDto.setPatientPhotoId(patient.getPhotoId());
+                reviewDto.setPatientPhotoUrl(UrlMapping.photoUrl(patient.getPhotoId(), patient.getPhotoHash()));
+            }
+        }
+        return reviewDto;
+    }
+
+    // Locks the reviewed vet's rating row before the review row is read (see VetRatingAggregator)
+    private Long lockRatingOf(Long reviewId) {
+        Long veterinarianId = reviewRepository.findVeterinarianIdById(reviewId).orElse(null);
+        if (veterinarianId != null) {
+            ratingAggregator.lock(veterinarianId);
+        }
+        return veterinarianId;
+    }
+
 }
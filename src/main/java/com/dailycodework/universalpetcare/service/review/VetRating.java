@@ -0,0 +1,6 @@
+package com.dailycodework.universalpetcare.service.review;
+
+// Review count and average stars of a vet, as read from its rating aggregate
+public record VetRating(long reviewCount, double averageRating) {
+    public static final VetRating NONE = new VetRating(0, 0.0);
+}
@@ -0,0 +1,114 @@
+package com.dailycodework.universalpetcare.service.review;
+
+import com.dailycodework.universalpetcare.model.VetRatingAggregate;
+import com.dailycodework.universalpetcare.repository.VetRatingAggregateRepository;
+import com.dailycodework.universalpetcare.service.veterinarian.VetRankingIndex;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Per-vet review count and star sum in vet_rating_aggregate, changed in the same
+ * transaction as the review itself. Review writers lock the vet's row first and
+ * the review row second, so concurrent writes for one vet apply their deltas in
+ * turn and the repair job (same lock order) never deadlocks with them.
+ *
+ * Single-vet reads go through a short-lived cache that each committed write
+ * invalidates; the TTL only bounds how long other instances' writes stay unseen.
+ */
+@Component
+public class VetRatingAggregator {
+    private static final Logger log = LoggerFactory.getLogger(VetRatingAggregator.class);
+    private static final long MAX_CACHED_VETS = 10_000;
+    private final VetRatingAggregateRepository aggregateRepository;
+    private final VetRankingIndex rankingIndex;
+    private final Cache<Long, VetRating> ratingCache;
+
+    public VetRatingAggregator(VetRatingAggregateRepository aggregateRepository, VetRankingIndex rankingIndex,
+                               @Value("${review.rating.cache-ttl:PT30S}") Duration cacheTtl) {
+        this.aggregateRepository = aggregateRepository;
+        this.rankingIndex = rankingIndex;
+        this.ratingCache = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_VETS)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    // Holds the vet's row lock until commit; call before reading the review whose stars change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(Long veterinarianId) {
+        aggregateRepository.upsert(veterinarianId, 0, 0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Long veterinarianId, long countDelta, long starDelta) {
+        aggregateRepository.upsert(veterinarianId, countDelta, starDelta);
+        SystemUtils.afterCommit(() -> changed(veterinarianId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Long veterinarianId) {
+        aggregateRepository.deleteById(veterinarianId);
+        SystemUtils.afterCommit(() -> changed(veterinarianId));
+    }
+
+    private void changed(Long veterinarianId) {
+        ratingCache.invalidate(veterinarianId);
+        rankingIndex.refresh(veterinarianId);
+    }
+
+    // One primary-key lookup at most, never a scan of the vet's reviews
+    public VetRating getRating(Long veterinarianId) {
+        return ratingCache.get(veterinarianId, id -> aggregateRepository.findById(id)
+                .map(aggregate -> new VetRating(aggregate.getReviewCount(), aggregate.getAverageRating()))
+                .orElse(VetRating.NONE));
+    }
+
+    // Vets without a row have no reviews yet
+    public Map<Long, VetRatingAggregate> findByVeterinarianIds(Collection<Long> veterinarianIds) {
+        if (veterinarianIds.isEmpty()) {
+            return Map.of();
+        }
+        return aggregateRepository.findAllById(veterinarianIds).stream()
+                .collect(Collectors.toMap(VetRatingAggregate::getVeterinarianId, Function.identity()));
+    }
+
+    // Before the vet ranking is built from the aggregates
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int added = aggregateRepository.backfill();
+        if (added > 0) {
+            log.info("Created rating aggregates for {} veterinarian(s)", added);
+        }
+    }
+
+    // Brings every aggregate back in line with the review table
+    @Transactional
+    public int repair() {
+        backfill();
+        int rows = aggregateRepository.recount();
+        SystemUtils.afterCommit(() -> {
+            ratingCache.invalidateAll();
+            rankingIndex.rebuild();
+        });
+        return rows;
+    }
+}
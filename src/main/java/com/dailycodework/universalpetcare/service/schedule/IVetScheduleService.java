@@ -0,0 +1,23 @@
+package com.dailycodework.universalpetcare.service.schedule;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface IVetScheduleService {
+    void reserve(Long veterinarianId, LocalDate date, LocalTime time);
+
+    void checkMove(Long veterinarianId, Long appointmentId, LocalDate date, LocalTime time);
+
+    void refreshDay(Long veterinarianId, LocalDate date);
+
+    void refreshReleasedDay(LocalDate date);
+
+    boolean isAvailable(Long veterinarianId, LocalDate date, LocalTime time);
+
+    Optional<LocalTime> findFirstFreeSlot(Long veterinarianId, LocalDate date, LocalTime notBefore);
+
+    Map<LocalDate, List<LocalTime>> getFreeSlots(Long veterinarianId, LocalDate from, LocalDate to);
+}
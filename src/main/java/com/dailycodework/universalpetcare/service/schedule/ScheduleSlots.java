@@ -0,0 +1,90 @@
+package com.dailycodework.universalpetcare.service.schedule;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Discrete model of a vet's working day. The day is cut into 10 minute slots from
+ * 08:00, appointments may start up to 18:00 and hold the vet for two hours, so a
+ * day fits in 72 bits. A booking that does not start on a slot boundary holds
+ * every slot it touches, from its start rounded down to its end rounded up.
+ */
+public final class ScheduleSlots {
+    public static final int SLOT_MINUTES = 10;
+    public static final LocalTime DAY_START = LocalTime.of(8, 0);
+    public static final LocalTime LAST_START = LocalTime.of(18, 0);
+    public static final int APPOINTMENT_SLOTS = 120 / SLOT_MINUTES;
+    public static final int LAST_START_SLOT = slotOf(LAST_START);
+    public static final int SLOTS_PER_DAY = LAST_START_SLOT + APPOINTMENT_SLOTS;
+
+    private ScheduleSlots() {
+    }
+
+    public static int slotOf(LocalTime time) {
+        return Math.floorDiv(minutesFromDayStart(time), SLOT_MINUTES);
+    }
+
+    // First slot after the appointment: its end rounded up, so an unaligned booking covers its last minutes too
+    public static int endSlotOf(LocalTime startTime) {
+        return Math.floorDiv(minutesFromDayStart(startTime) + APPOINTMENT_SLOTS * SLOT_MINUTES + SLOT_MINUTES - 1,
+                SLOT_MINUTES);
+    }
+
+    public static LocalTime timeOf(int slot) {
+        return DAY_START.plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    public static void occupy(BitSet slots, LocalTime startTime) {
+        int from = Math.max(0, slotOf(startTime));
+        int to = Math.min(SLOTS_PER_DAY, endSlotOf(startTime));
+        if (from < to) {
+            slots.set(from, to);
+        }
+    }
+
+    public static boolean isFree(BitSet slots, LocalTime startTime) {
+        int start = slotOf(startTime);
+        int end = endSlotOf(startTime);
+        if (start < 0 || end > SLOTS_PER_DAY) {
+            return false;
+        }
+        int nextBooked = slots.nextSetBit(start);
+        return nextBooked < 0 || nextBooked >= end;
+    }
+
+    public static Optional<LocalTime> firstFree(BitSet slots, LocalTime notBefore) {
+        int candidate = Math.max(0, ceilSlotOf(notBefore));
+        while (candidate <= LAST_START_SLOT) {
+            candidate = slots.nextClearBit(candidate);
+            int nextBooked = slots.nextSetBit(candidate);
+            if (nextBooked < 0 || nextBooked >= candidate + APPOINTMENT_SLOTS) {
+                return candidate <= LAST_START_SLOT ? Optional.of(timeOf(candidate)) : Optional.empty();
+            }
+            candidate = nextBooked;
+        }
+        return Optional.empty();
+    }
+
+    public static List<LocalTime> freeStartTimes(BitSet slots, LocalTime notBefore) {
+        List<LocalTime> freeTimes = new ArrayList<>();
+        for (int slot = Math.max(0, ceilSlotOf(notBefore)); slot <= LAST_START_SLOT; slot++) {
+            int nextBooked = slots.nextSetBit(slot);
+            if (nextBooked < 0 || nextBooked >= slot + APPOINTMENT_SLOTS) {
+                freeTimes.add(timeOf(slot));
+            }
+        }
+        return freeTimes;
+    }
+
+    private static int minutesFromDayStart(LocalTime time) {
+        return time.toSecondOfDay() / 60 - DAY_START.toSecondOfDay() / 60;
+    }
+
+    private static int ceilSlotOf(LocalTime time) {
+        int slot = slotOf(time);
+        return timeOf(slot).equals(time) ? slot : slot + 1;
+    }
+}
@@ -0,0 +1,175 @@
+package com.dailycodework.universalpetcare.service.schedule;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.exception.AlreadyExistsException;
+import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
+import com.dailycodework.universalpetcare.model.VetDaySchedule;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.VetDayScheduleRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class VetScheduleService implements IVetScheduleService {
+    private static final Logger log = LoggerFactory.getLogger(VetScheduleService.class);
+    private static final int MAX_RANGE_DAYS = 31;
+    private final VetDayScheduleRepository scheduleRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final VeterinarianRepository veterinarianRepository;
+
+    // Seeds the table once from upcoming appointments; afterwards it is kept current by refreshDay
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (scheduleRepository.count() > 0) {
+            return;
+        }
+        List<Object[]> rows = appointmentRepository.findBookedTimesFrom(today(), AppointmentStatus.SLOT_RELEASING);
+        Map<Long, Map<LocalDate, BitSet>> slotsByVet = new HashMap<>();
+        for (Object[] row : rows) {
+            BitSet slots = slotsByVet.computeIfAbsent((Long) row[1], vet -> new HashMap<>())
+                    .computeIfAbsent((LocalDate) row[2], day -> new BitSet(ScheduleSlots.SLOTS_PER_DAY));
+            ScheduleSlots.occupy(slots, (LocalTime) row[3]);
+        }
+        List<VetDaySchedule> schedules = new ArrayList<>();
+        slotsByVet.forEach((vetId, days) -> days.forEach((day, slots) -> {
+            VetDaySchedule schedule = new VetDaySchedule(vetId, day);
+            schedule.slots(slots);
+            schedules.add(schedule);
+        }));
+        scheduleRepository.saveAll(schedules);
+        log.info("Built {} vet day schedule(s) from upcoming appointments", schedules.size());
+    }
+
+    /*
+     * Claims the slots of a new booking inside the booking transaction. The vet row
+     * lock serialises bookings per vet, and the day row is read with a locking read
+     * so a booking committed while we waited is always seen.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void reserve(Long veterinarianId, LocalDate date, LocalTime time) {
+        lockVeterinarian(veterinarianId);
+        VetDaySchedule schedule = scheduleRepository.findForUpdate(veterinarianId, date)
+                .orElseGet(() -> new VetDaySchedule(veterinarianId, date));
+        BitSet slots = schedule.slots();
+        if (!ScheduleSlots.isFree(slots, time)) {
+            throw new AlreadyExistsException(FeedBackMessage.APPOINTMENT_SLOT_TAKEN);
+        }
+        ScheduleSlots.occupy(slots, time);
+        schedule.slots(slots);
+        scheduleRepository.save(schedule);
+    }
+
+    /*
+     * Checks that an existing appointment can move to a new date and time. Takes the
+     * same vet lock as reserve; the day is rebuilt from the table without the moving
+     * appointment so it never collides with its own slots. The caller refreshes the
+     * affected days once the appointment is saved.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void checkMove(Long veterinarianId, Long appointmentId, LocalDate date, LocalTime time) {
+        lockVeterinarian(veterinarianId);
+        BitSet slots = new BitSet(ScheduleSlots.SLOTS_PER_DAY);
+        appointmentRepository.findBookedTimesOfOthers(veterinarianId, date, AppointmentStatus.SLOT_RELEASING, appointmentId)
+                .forEach(booked -> ScheduleSlots.occupy(slots, booked));
+        if (!ScheduleSlots.isFree(slots, time)) {
+            throw new AlreadyExistsException(FeedBackMessage.APPOINTMENT_SLOT_TAKEN);
+        }
+    }
+
+    @Transactional
+    @Override
+    public void refreshDay(Long veterinarianId, LocalDate date) {
+        lockVeterinarian(veterinarianId);
+        BitSet slots = new BitSet(ScheduleSlots.SLOTS_PER_DAY);
+        appointmentRepository.findBookedTimes(veterinarianId, date, AppointmentStatus.SLOT_RELEASING)
+                .forEach(time -> ScheduleSlots.occupy(slots, time));
+        VetDaySchedule schedule = scheduleRepository.findByVeterinarianIdAndScheduleDate(veterinarianId, date)
+                .orElseGet(() -> new VetDaySchedule(veterinarianId, date));
+        schedule.slots(slots);
+        scheduleRepository.save(schedule);
+    }
+
+    /*
+     * Rebuilds the day of every vet that has a cancelled or declined appointment on
+     * that date, for transitions made in bulk where the vets are not known up front.
+     * Vets are locked in id order.
+     */
+    @Transactional
+    @Override
+    public void refreshReleasedDay(LocalDate date) {
+        appointmentRepository.findVeterinarianIdsOn(date, AppointmentStatus.SLOT_RELEASING).stream()
+                .sorted()
+                .forEach(veterinarianId -> refreshDay(veterinarianId, date));
+    }
+
+    @Override
+    public boolean isAvailable(Long veterinarianId, LocalDate date, LocalTime time) {
+        return ScheduleSlots.isFree(loadSlots(veterinarianId, date), time);
+    }
+
+    @Override
+    public Optional<LocalTime> findFirstFreeSlot(Long veterinarianId, LocalDate date, LocalTime notBefore) {
+        return ScheduleSlots.firstFree(loadSlots(veterinarianId, date), earliestStart(date, notBefore));
+    }
+
+    @Override
+    public Map<LocalDate, List<LocalTime>> getFreeSlots(Long veterinarianId, LocalDate from, LocalDate to) {
+        LocalDate start = from.isBefore(today()) ? today() : from;
+        if (to.isBefore(start) || ChronoUnit.DAYS.between(start, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException(FeedBackMessage.INVALID_DATE_RANGE);
+        }
+        Map<LocalDate, BitSet> booked = scheduleRepository
+                .findByVeterinarianIdAndScheduleDateBetween(veterinarianId, start, to)
+                .stream()
+                .collect(Collectors.toMap(VetDaySchedule::getScheduleDate, VetDaySchedule::slots));
+        Map<LocalDate, List<LocalTime>> freeSlots = new LinkedHashMap<>();
+        for (LocalDate day = start; !day.isAfter(to); day = day.plusDays(1)) {
+            BitSet slots = booked.getOrDefault(day, new BitSet());
+            freeSlots.put(day, ScheduleSlots.freeStartTimes(slots, earliestStart(day, LocalTime.MIN)));
+        }
+        return freeSlots;
+    }
+
+    private void lockVeterinarian(Long veterinarianId) {
+        if (veterinarianRepository.lockById(veterinarianId).isEmpty()) {
+            throw new ResourceNotFoundException(FeedBackMessage.VET_OR_PATIENT_NOT_FOUND);
+        }
+    }
+
+    private BitSet loadSlots(Long veterinarianId, LocalDate date) {
+        return scheduleRepository.findByVeterinarianIdAndScheduleDate(veterinarianId, date)
+                .map(VetDaySchedule::slots)
+                .orElseGet(BitSet::new);
+    }
+
+    private LocalTime earliestStart(LocalDate date, LocalTime notBefore) {
+        if (date.equals(today())) {
+            LocalTime now = LocalTime.now(SystemUtils.CLINIC_ZONE);
+            return now.isAfter(notBefore) ? now : notBefore;
+        }
+        return notBefore;
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(SystemUtils.CLINIC_ZONE);
+    }
+}
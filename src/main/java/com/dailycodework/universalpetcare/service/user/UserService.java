@@ -3,14 +3,17 @@ package com.dailycodework.universalpetcare.service.user;
 import com.dailycodework.universalpetcare.enums.AppointmentStatus;
 
 import com.dailycodework.universalpetcare.dto.AppointmentDto;
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
 import com.dailycodework.universalpetcare.dto.EntityConverter;
 import com.dailycodework.universalpetcare.dto.ReviewDto;
 import com.dailycodework.universalpetcare.dto.UserDto;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
 import com.dailycodework.universalpetcare.factory.UserFactory;
 import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.model.Photo;
 import com.dailycodework.universalpetcare.model.Review;
 import com.dailycodework.universalpetcare.model.User;
+import com.dailycodework.universalpetcare.model.Veterinarian;
 import com.dailycodework.universalpetcare.repository.AppointmentRepository;
 import com.dailycodework.universalpetcare.repository.ReviewRepository;
 import com.dailycodework.universalpetcare.repository.UserRepository;
@@ -18,13 +21,19 @@ import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
 import com.dailycodework.universalpetcare.request.RegistrationRequest;
 import com.dailycodework.universalpetcare.request.UserUpdateRequest;
 import com.dailycodework.universalpetcare.service.appointment.AppointmentService;
+import com.dailycodework.universalpetcare.service.appointment.AppointmentStatusCounter;
 import com.dailycodework.universalpetcare.service.pet.IPetService;
-import com.dailycodework.universalpetcare.service.photo.PhotoService;
+import com.dailycodework.universalpetcare.service.photo.PhotoContentRegistry;
 import com.dailycodework.universalpetcare.service.review.ReviewService;
+import com.dailycodework.universalpetcare.service.review.VetRating;
+import com.dailycodework.universalpetcare.service.review.VetRatingAggregator;
+import com.dailycodework.universalpetcare.service.veterinarian.VetRankingIndex;
 import com.dailycodework.universalpetcare.utils.FeedBackMessage;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import com.dailycodework.universalpetcare.utils.UrlMapping;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.SQLException;
 import java.time.Month;
@@ -38,14 +47,18 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class UserService implements IUserService {
+    private static final int PROFILE_REVIEW_COUNT = 5;
     private final UserRepository userRepository;
     private final UserFactory userFactory;
     private final VeterinarianRepository veterinarianRepository;
     private final EntityConverter<User, UserDto> entityConverter;
     private final AppointmentService appointmentService;
+    private final AppointmentStatusCounter statusCounter;
+    private final PhotoContentRegistry photoContentRegistry;
     private final IPetService petService;
-    private final PhotoService photoService;
     private final ReviewService reviewService;
+    private final VetRatingAggregator ratingAggregator;
+    private final VetRankingIndex rankingIndex;
     private final ReviewRepository reviewRepository;
     private final AppointmentRepository appointmentRepository;
 
@@ -62,7 +75,12 @@ public class UserService implements IUserService {
         user.setGender(request.getGender());
         user.setPhoneNumber(request.getPhoneNumber());
         user.setSpecialization(request.getSpecialization());
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        if (savedUser instanceof Veterinarian) {
+            // Name or specialization may have changed
+            SystemUtils.afterCommit(() -> rankingIndex.refresh(userId));
+        }
+        return savedUser;
     }
 
     @Override
@@ -71,11 +89,22 @@ public class UserService implements IUserService {
                 .orElseThrow(() -> new ResourceNotFoundException(FeedBackMessage.USER_NOT_FOUND));
     }
 
+    @Transactional
     @Override
     public void delete(Long userId) {
         userRepository.findById(userId)
                 .ifPresentOrElse(userToDelete -> {
+                    // Same lock order as review writers: the vets' rating rows (in id order), then the reviews
+                    reviewRepository.findVeterinarianIdsByUserId(userId).stream()
+                            .sorted()
+                            .forEach(ratingAggregator::lock);
                     List<Review> reviews = new ArrayList<>(reviewRepository.findAllByUserId(userId));
+                    // Take the reviews out of the other vets' ratings; this user's own aggregate goes with them
+                    reviews.stream()
+                            .filter(review -> review.getVeterinarian() != null)
+                            .filter(review -> !review.getVeterinarian().getId().equals(userId))
+                            .forEach(review -> ratingAggregator.apply(review.getVeterinarian().getId(), -1, -review.getStars()));
+                    ratingAggregator.remove(userId);
                     reviewRepository.deleteAll(reviews);
                     List<Appointment> appointments = new ArrayList<>(appointmentRepository.findAllByUserId(userId));
 
@@ -91,6 +120,11 @@ public class UserService implements IUserService {
                     }
 
                     appointmentRepository.deleteAll(appointments);
+                    appointments.forEach(appointment -> statusCounter.recordDeleted(appointment.getStatus()));
+                    // The photo row goes with the user (cascade); give up its reference to the stored bytes
+                    if (userToDelete.getPhoto() != null) {
+                        photoContentRegistry.release(userToDelete.getPhoto().getContentHash());
+                    }
                     userRepository.deleteById(userId);
 
                 }, () -> {
@@ -114,6 +148,8 @@ public class UserService implements IUserService {
                 .collect(Collectors.toList());
     }
 
+    // Read-only transaction so the lazy photos of the user and review authors can be read
+    @Transactional(readOnly = true)
     @Override
     public UserDto getUserWithDetails(Long userId) throws SQLException {
         // 1. get the user
@@ -121,7 +157,11 @@ public class UserService implements IUserService {
         // 2. convert the user to a userDto
         UserDto userDto = entityConverter.mapEntityToDto(user, UserDto.class);
 
-        userDto.setTotalReviewers(reviewRepository.countByVeterinarianId(userId));
+        VetRating rating = reviewService.getRatingForVet(userId);
+        userDto.setTotalReviewers(rating.reviewCount());
+        if (rating.reviewCount() > 0) {
+            userDto.setAverageRating(rating.averageRating());
+        }
 
         // 3. get user appointments ( users ( patient and a vet))
         setUserAppointment(userDto);
@@ -136,76 +176,19 @@ public class UserService implements IUserService {
         userDto.setAppointments(appointments);
     }
 
-    private void setUserPhoto(UserDto userDto, User user) throws SQLException {
-        if (user.getPhoto() != null) {
-            userDto.setPhotoId(user.getPhoto().getId());
-            userDto.setPhoto(photoService.getImageData(user.getPhoto().getId()));
+    private void setUserPhoto(UserDto userDto, User user) {
+        Photo photo = user.getPhoto();
+        if (photo != null) {
+            userDto.setPhotoId(photo.getId());
+            userDto.setPhotoUrl(UrlMapping.photoUrl(photo.getId(), photo.getContentHash()));
         }
     }
 
+    // Only the newest reviews are embedded; the cursor continues in the review feed
     private void setUserReviews(UserDto userDto, Long userId) {
-        Page<Review> reviewPage = reviewService.findAllReviewsByUserId(userId, 0, Integer.MAX_VALUE);
-        List<ReviewDto> reviewDto = reviewPage.getContent()
-                .stream()
-                .map(this::mapReviewToDto).toList();
-        if (!reviewDto.isEmpty()) {
-            double averageRating = reviewService.getAverageRatingForVet(userId);
-            userDto.setAverageRating(averageRating);
-        }
-        userDto.setReviews(reviewDto);
-    }
-
-    private ReviewDto mapReviewToDto(Review review) {
-        ReviewDto reviewDto = new ReviewDto();
-        reviewDto.setId(review.getId());
-        reviewDto.setStars(review.getStars());
-        reviewDto.setFeedback(review.getFeedback());
-        mapVeterinarianInfo(reviewDto, review);
-        mapPatientInfo(reviewDto, review);
-        return reviewDto;
-    }
-
-    private void mapVeterinarianInfo(ReviewDto reviewDto, Review review) {
-        if (review.getVeterinarian() != null) {
-            reviewDto.setVeterinarianId(review.getVeterinarian().getId());
-            reviewDto.setVeterinarianName(
-                    review.getVeterinarian().getFirstName() + " " + review.getVeterinarian().getLastName());
-            // set the photo
-            setVeterinarianPhoto(reviewDto, review);
-        }
-    }
-
-    private void mapPatientInfo(ReviewDto reviewDto, Review review) {
-        if (review.getPatient() != null) {
-            reviewDto.setPatientId(review.getPatient().getId());
-            reviewDto.setPatientName(review.getPatient().getFirstName() + " " + review.getPatient().getLastName());
-            // set the photo
-            setReviewerPhoto(reviewDto, review);
-        }
-    }
-
-    private void setReviewerPhoto(ReviewDto reviewDto, Review review) {
-        if (review.getPatient().getPhoto() != null) {
-            try {
-                reviewDto.setPatientImage(photoService.getImageData(review.getPatient().getPhoto().getId()));
-            } catch (SQLException e) {
-                throw new RuntimeException(e.getMessage());
-            }
-        } else {
-            reviewDto.setPatientImage(null);
-        }
-    }
-
-    private void setVeterinarianPhoto(ReviewDto reviewDto, Review review) {
-        if (review.getVeterinarian().getPhoto() != null) {
-            try {
-                reviewDto.setVeterinarianImage(photoService.getImageData(review.getVeterinarian().getPhoto().getId()));
-            } catch (SQLException e) {
-                throw new RuntimeException(e.getMessage());
-            }
-        } else {
-            reviewDto.setVeterinarianImage(null);
-        }
+        CursorPageDto<ReviewDto> reviews = reviewService.getReviewFeed(userId, null, PROFILE_REVIEW_COUNT);
+        userDto.setReviews(reviews.getItems());
+        userDto.setReviewsCursor(reviews.getNextCursor());
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.dailycodework.universalpetcare.service.veterinarian;
 
+import com.dailycodework.universalpetcare.dto.RankedVetDto;
 import com.dailycodework.universalpetcare.dto.UserDto;
 import com.dailycodework.universalpetcare.model.Veterinarian;
 
@@ -23,4 +24,6 @@ public interface IVeterinarianService {
     List<Veterinarian> getVeterinariansBySpecialization(String specialization);
 
     List<Map<String, Object>> aggregateVetsBySpecialization();
+
+    List<RankedVetDto> getTopRatedVeterinarians(String specialization, int limit);
 }
@@ -0,0 +1,189 @@
+package com.dailycodework.universalpetcare.service.veterinarian;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * In-memory copy of the booked appointment times of every vet from today onwards,
+ * grouped by day and sorted by time, so availability searches don't have to run
+ * the NOT IN subqueries in VeterinarianRepository.
+ * The index is per process and eventually consistent: this node's own writes and
+ * queued transitions are applied after commit, while changes made by other nodes
+ * or by the bulk status sweep show up at the next reload (every 10 minutes by
+ * default). Bookings themselves are always checked under the vet lock.
+ */
+@Component
+@RequiredArgsConstructor
+public class VetAvailabilityIndex {
+    private static final Logger log = LoggerFactory.getLogger(VetAvailabilityIndex.class);
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<LocalDate, Map<Long, NavigableMap<LocalTime, Integer>>> bookingsByDay = new HashMap<>();
+    private final Map<Long, Booking> bookingsById = new HashMap<>();
+    private volatile boolean loaded;
+    private final Object reloadLock = new Object();
+    // Changes applied while a reload is reading; replayed on top of its snapshot
+    private List<Runnable> appliedDuringReload;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${appointment.availability.reload-cron:0 0/10 * * * ?}")
+    public void load() {
+        synchronized (reloadLock) {
+            setAppliedDuringReload(new ArrayList<>());
+            List<Object[]> rows;
+            try {
+                rows = appointmentRepository.findBookedTimesFrom(today(), AppointmentStatus.SLOT_RELEASING);
+            } catch (RuntimeException e) {
+                setAppliedDuringReload(null);
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                bookingsByDay.clear();
+                bookingsById.clear();
+                rows.forEach(row -> add(new Booking((Long) row[0], (Long) row[1], (LocalDate) row[2], (LocalTime) row[3])));
+                // Changes committed after the query started would otherwise be lost until the next reload
+                appliedDuringReload.forEach(Runnable::run);
+                appliedDuringReload = null;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Loaded {} booked appointment time(s) into the availability index", rows.size());
+        }
+    }
+
+    /*
+     * The index only covers today and later; callers fall back to the database
+     * for past dates or before the index is loaded.
+     */
+    public boolean covers(LocalDate date) {
+        return loaded && !date.isBefore(today());
+    }
+
+    // Vets with an appointment strictly between minTime and maxTime on the given day
+    public Set<Long> findBusyVeterinarianIds(LocalDate date, LocalTime minTime, LocalTime maxTime) {
+        lock.readLock().lock();
+        try {
+            Map<Long, NavigableMap<LocalTime, Integer>> vets = bookingsByDay.get(date);
+            if (vets == null) {
+                return Set.of();
+            }
+            Set<Long> busy = new HashSet<>();
+            vets.forEach((vetId, times) -> {
+                if (!times.subMap(minTime, false, maxTime, false).isEmpty()) {
+                    busy.add(vetId);
+                }
+            });
+            return busy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void update(Appointment appointment) {
+        Long id = appointment.getId();
+        Long vetId = appointment.getVeterinarian() != null ? appointment.getVeterinarian().getId() : null;
+        boolean booked = vetId != null && !AppointmentStatus.SLOT_RELEASING.contains(appointment.getStatus());
+        Booking booking = booked
+                ? new Booking(id, vetId, appointment.getAppointmentDate(), appointment.getAppointmentTime())
+                : null;
+        SystemUtils.afterCommit(() -> apply(() -> {
+            remove(id);
+            if (booking != null && !booking.date().isBefore(today())) {
+                add(booking);
+            }
+        }));
+    }
+
+    public void evict(Long appointmentId) {
+        SystemUtils.afterCommit(() -> apply(() -> remove(appointmentId)));
+    }
+
+    @Scheduled(cron = "0 5 0 * * ?", zone = "Asia/Ho_Chi_Minh")
+    public void dropPastDays() {
+        LocalDate today = today();
+        lock.writeLock().lock();
+        try {
+            bookingsByDay.keySet().removeIf(day -> day.isBefore(today));
+            bookingsById.values().removeIf(booking -> booking.date().isBefore(today));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Both steps are idempotent, so replaying one the reload's snapshot already has is harmless
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (appliedDuringReload != null) {
+                appliedDuringReload.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setAppliedDuringReload(List<Runnable> changes) {
+        lock.writeLock().lock();
+        try {
+            appliedDuringReload = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Booking booking) {
+        bookingsById.put(booking.id(), booking);
+        bookingsByDay.computeIfAbsent(booking.date(), day -> new HashMap<>())
+                .computeIfAbsent(booking.vetId(), vet -> new TreeMap<>())
+                .merge(booking.time(), 1, Integer::sum);
+    }
+
+    private void remove(Long appointmentId) {
+        Booking booking = bookingsById.remove(appointmentId);
+        if (booking == null) {
+            return;
+        }
+        Map<Long, NavigableMap<LocalTime, Integer>> vets = bookingsByDay.get(booking.date());
+        if (vets == null) {
+            return;
+        }
+        NavigableMap<LocalTime, Integer> times = vets.get(booking.vetId());
+        if (times == null) {
+            return;
+        }
+        times.computeIfPresent(booking.time(), (time, count) -> count > 1 ? count - 1 : null);
+        if (times.isEmpty()) {
+            vets.remove(booking.vetId());
+        }
+        if (vets.isEmpty()) {
+            bookingsByDay.remove(booking.date());
+        }
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(SystemUtils.CLINIC_ZONE);
+    }
+
+    private record Booking(Long id, Long vetId, LocalDate date, LocalTime time) {
+    }
+}
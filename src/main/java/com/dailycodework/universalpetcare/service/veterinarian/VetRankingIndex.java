@@ -0,0 +1,176 @@
+package com.dailycodework.universalpetcare.service.veterinarian;
+
+import com.dailycodework.universalpetcare.dto.RankedVetDto;
+import com.dailycodework.universalpetcare.repository.VetRatingAggregateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * In-memory ranking of reviewed vets by Bayesian average:
+ *
+ *     score = (priorWeight * mean + starSum) / (priorWeight + reviewCount)
+ *
+ * where mean is the clinic-wide average, so one 5-star review does not beat
+ * hundreds of 4.8s. Vets are kept per specialization in a set ordered by score
+ * (a heap that also supports removing a vet whose rating changed), and the first
+ * topK of each are published as an immutable list, so a top-vets request is a map
+ * lookup. A review write refreshes its vet from the rating aggregate after commit;
+ * the full rebuild runs once at startup and hourly, which is also when the mean
+ * moves.
+ */
+@Component
+public class VetRankingIndex {
+    private static final Logger log = LoggerFactory.getLogger(VetRankingIndex.class);
+    private static final Comparator<RankedVetDto> BY_SCORE = Comparator
+            .comparingDouble(RankedVetDto::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(RankedVetDto::getReviewCount).reversed())
+            .thenComparing(RankedVetDto::getId);
+
+    private final VetRatingAggregateRepository aggregateRepository;
+    private final double priorWeight;
+    private final int topK;
+
+    private final Object rebuildLock = new Object();
+    private final Map<Long, RankedVetDto> vets = new HashMap<>();
+    private final Map<String, NavigableSet<RankedVetDto>> bySpecialization = new HashMap<>();
+    private volatile Map<String, List<RankedVetDto>> topBySpecialization = Map.of();
+    private double priorMean;
+    private boolean loaded;
+    // Vets refreshed while a rebuild was reading; applied again on top of its snapshot
+    private Set<Long> refreshedDuringRebuild;
+    // Taken before every read; a read is applied only if nothing read later was applied before it
+    private final AtomicLong readSequence = new AtomicLong();
+    private final Map<Long, Long> appliedSequence = new HashMap<>();
+    private long rebuildSequence;
+
+    public VetRankingIndex(VetRatingAggregateRepository aggregateRepository,
+                           @Value("${review.ranking.prior-weight:5}") double priorWeight,
+                           @Value("${review.ranking.top-k:20}") int topK) {
+        this.aggregateRepository = aggregateRepository;
+        this.priorWeight = priorWeight;
+        this.topK = topK;
+    }
+
+    // Best vets of a specialization, at most topK; empty until the startup build has run
+    public List<RankedVetDto> getTopVets(String specialization, int limit) {
+        List<RankedVetDto> top = topBySpecialization.getOrDefault(key(specialization), List.of());
+        return top.subList(0, Math.min(Math.max(limit, 1), top.size()));
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    // Runs after the rating aggregates are backfilled at startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${review.ranking.rebuild-cron:0 10 * * * ?}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        synchronized (this) {
+            refreshedDuringRebuild = new HashSet<>();
+        }
+        long sequence = readSequence.incrementAndGet();
+        List<Object[]> rows = aggregateRepository.findRankingRows();
+        long reviews = 0;
+        long stars = 0;
+        for (Object[] row : rows) {
+            reviews += (Long) row[5];
+            stars += (Long) row[6];
+        }
+        Set<Long> refreshed;
+        synchronized (this) {
+            priorMean = reviews > 0 ? (double) stars / reviews : 0.0;
+            vets.clear();
+            bySpecialization.clear();
+            rows.forEach(row -> add(toRankedVet(row)));
+            appliedSequence.clear();
+            rebuildSequence = sequence;
+            topBySpecialization = Map.of();
+            publish(bySpecialization.keySet());
+            loaded = true;
+            refreshed = refreshedDuringRebuild;
+            refreshedDuringRebuild = null;
+        }
+        refreshed.forEach(this::refresh);
+        log.info("Ranked {} reviewed vet(s), clinic-wide mean rating {}", rows.size(), String.format("%.2f", priorMean));
+    }
+
+    /*
+     * Re-reads one vet's rating aggregate; called after a review or profile change
+     * commits. The read runs outside the lock so refreshes of different vets don't
+     * queue behind each other's queries; a read that started before one already
+     * applied (or before the current snapshot was read) is older and is dropped.
+     */
+    public void refresh(Long veterinarianId) {
+        long sequence = readSequence.incrementAndGet();
+        List<Object[]> rows = aggregateRepository.findRankingRow(veterinarianId);
+        synchronized (this) {
+            if (refreshedDuringRebuild != null) {
+                refreshedDuringRebuild.add(veterinarianId);
+            }
+            if (!loaded || sequence < rebuildSequence
+                    || sequence < appliedSequence.getOrDefault(veterinarianId, 0L)) {
+                return;
+            }
+            appliedSequence.put(veterinarianId, sequence);
+            Set<String> changed = new HashSet<>();
+            RankedVetDto previous = vets.remove(veterinarianId);
+            if (previous != null) {
+                bySpecialization.get(key(previous.getSpecialization())).remove(previous);
+                changed.add(key(previous.getSpecialization()));
+            }
+            if (!rows.isEmpty()) {
+                RankedVetDto current = toRankedVet(rows.get(0));
+                add(current);
+                changed.add(key(current.getSpecialization()));
+            }
+            publish(changed);
+        }
+    }
+
+    private RankedVetDto toRankedVet(Object[] row) {
+        long reviewCount = (Long) row[5];
+        long starSum = (Long) row[6];
+        double score = (priorWeight * priorMean + starSum) / (priorWeight + reviewCount);
+        return new RankedVetDto((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (Long) row[4],
+                (double) starSum / reviewCount, reviewCount, score);
+    }
+
+    private void add(RankedVetDto vet) {
+        vets.put(vet.getId(), vet);
+        bySpecialization.computeIfAbsent(key(vet.getSpecialization()), specialization -> new TreeSet<>(BY_SCORE))
+                .add(vet);
+    }
+
+    // Swaps in fresh top lists for the given specializations; readers never see a half-updated one
+    private void publish(Set<String> specializations) {
+        Map<String, List<RankedVetDto>> top = new HashMap<>(topBySpecialization);
+        for (String specialization : specializations) {
+            NavigableSet<RankedVetDto> ranked = bySpecialization.get(specialization);
+            if (ranked == null || ranked.isEmpty()) {
+                bySpecialization.remove(specialization);
+                top.remove(specialization);
+            } else {
+                top.put(specialization, ranked.stream().limit(topK).toList());
+            }
+        }
+        topBySpecialization = Map.copyOf(top);
+    }
+
+    private static String key(String specialization) {
+        return specialization == null ? "" : specialization.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,13 +1,17 @@
 package com.dailycodework.universalpetcare.service.veterinarian;
 
 import com.dailycodework.universalpetcare.dto.EntityConverter;
+import com.dailycodework.universalpetcare.dto.RankedVetDto;
 import com.dailycodework.universalpetcare.dto.UserDto;
 import com.dailycodework.universalpetcare.dto.VetSummaryDto;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
 import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
+import com.dailycodework.universalpetcare.model.VetRatingAggregate;
 import com.dailycodework.universalpetcare.model.Veterinarian;
-import com.dailycodework.universalpetcare.repository.ReviewRepository;
 import com.dailycodework.universalpetcare.repository.UserRepository;
 import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.service.review.VetRatingAggregator;
+import com.dailycodework.universalpetcare.utils.UrlMapping;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,6 +21,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,17 +29,17 @@ import java.util.stream.Collectors;
 public class VeterinarianService implements IVeterinarianService {
     private final VeterinarianRepository veterinarianRepository;
     private final EntityConverter<Veterinarian, UserDto> entityConverter;
-    private final ReviewRepository reviewRepository;
+    private final VetRatingAggregator ratingAggregator;
     private final UserRepository userRepository;
+    private final VetAvailabilityIndex availabilityIndex;
+    private final VetRankingIndex rankingIndex;
 
     @Override
     public Page<VetSummaryDto> getAllVeterinarians(int page, int size) {
         PageRequest pageRequest = PageRequest.of(page, size);
         Page<Veterinarian> vetsPage = veterinarianRepository.findAll(pageRequest);
 
-        // Optimize stats fetching for just this page
-        List<Long> vetIds = vetsPage.getContent().stream().map(Veterinarian::getId).toList();
-        Map<Long, ReviewStatsDto> reviewStatsMap = getReviewStatsMap(vetIds);
+        Map<Long, ReviewStatsDto> reviewStatsMap = getReviewStatsMap(vetsPage.getContent());
 
         return vetsPage.map(vet -> mapToVetSummaryDto(vet, reviewStatsMap));
     }
@@ -42,7 +47,7 @@ public class VeterinarianService implements IVeterinarianService {
     @Override
     public List<UserDto> getAllVeterinariansWithDetails() {
         List<Veterinarian> veterinarians = userRepository.findAllByUserType("VET");
-        Map<Long, ReviewStatsDto> reviewStatsMap = getReviewStatsMap();
+        Map<Long, ReviewStatsDto> reviewStatsMap = getReviewStatsMap(veterinarians);
 
         return veterinarians.stream()
                 .map(vet -> mapVeterinarianToUserDto(vet, reviewStatsMap))
@@ -57,7 +62,7 @@ public class VeterinarianService implements IVeterinarianService {
     @Override
     public List<UserDto> findAvailableVetsForAppointment(String specialization, LocalDate date, LocalTime time) {
         List<Veterinarian> filteredVets = getAvailableVeterinarians(specialization, date, time);
-        Map<Long, ReviewStatsDto> reviewStatsMap = getReviewStatsMap();
+        Map<Long, ReviewStatsDto> reviewStatsMap = getReviewStatsMap(filteredVets);
 
         return filteredVets.stream()
                 .map(vet -> mapVeterinarianToUserDto(vet, reviewStatsMap))
@@ -80,6 +85,12 @@ public class VeterinarianService implements IVeterinarianService {
                 .collect(Collectors.toList());
     }
 
+    // Served from the in-memory ranking: no query per request
+    @Override
+    public List<RankedVetDto> getTopRatedVeterinarians(String specialization, int limit) {
+        return rankingIndex.getTopVets(specialization, limit);
+    }
+
     // ==========================================
     // PRIVATE HELPERS
     // ==========================================
@@ -104,21 +115,20 @@ public class VeterinarianService implements IVeterinarianService {
 
         if (veterinarian.getPhoto() != null) {
             userDto.setPhotoId(veterinarian.getPhoto().getId());
+            // Unversioned: the hash would mean loading every vet's photo row
+            userDto.setPhotoUrl(UrlMapping.photoUrl(veterinarian.getPhoto().getId(), null));
         }
         return userDto;
     }
 
-    private Map<Long, ReviewStatsDto> getReviewStatsMap(List<Long> vetIds) {
-        // Simple implementation reusing global fetch for now
-        return getReviewStatsMap();
-    }
-
-    private Map<Long, ReviewStatsDto> getReviewStatsMap() {
-        List<Object[]> stats = reviewRepository.getReviewStats();
-        return stats.stream()
+    // Primary-key lookups of the listed vets' rating aggregates, not an aggregation over all reviews
+    private Map<Long, ReviewStatsDto> getReviewStatsMap(List<Veterinarian> vets) {
+        List<Long> vetIds = vets.stream().map(Veterinarian::getId).toList();
+        Map<Long, VetRatingAggregate> aggregates = ratingAggregator.findByVeterinarianIds(vetIds);
+        return aggregates.values().stream()
                 .collect(Collectors.toMap(
-                        row -> (Long) row[0],
-                        row -> new ReviewStatsDto((Long) row[1], (Double) row[2])));
+                        VetRatingAggregate::getVeterinarianId,
+                        aggregate -> new ReviewStatsDto(aggregate.getReviewCount(), aggregate.getAverageRating())));
     }
 
     private record ReviewStatsDto(Long totalReviewers, Double averageRating) {
@@ -130,10 +140,21 @@ public class VeterinarianService implements IVeterinarianService {
             LocalTime minTime = calculateMinTime(time);
             LocalTime maxTime = calculateMaxTime(endTime);
 
+            if (availabilityIndex.covers(date)) {
+                Set<Long> busyVetIds = availabilityIndex.findBusyVeterinarianIds(date, minTime, maxTime);
+                List<Veterinarian> candidates = (specialization == null || specialization.isEmpty())
+                        ? veterinarianRepository.findAll()
+                        : veterinarianRepository.findBySpecialization(specialization);
+                return candidates.stream()
+                        .filter(vet -> !busyVetIds.contains(vet.getId()))
+                        .toList();
+            }
             if (specialization == null || specialization.isEmpty()) {
-                return veterinarianRepository.findAllAvailableVeterinarians(date, minTime, maxTime);
+                return veterinarianRepository.findAllAvailableVeterinarians(date, minTime, maxTime,
+                        AppointmentStatus.SLOT_RELEASING);
             } else {
-                return veterinarianRepository.findAvailableVeterinarians(specialization, date, minTime, maxTime);
+                return veterinarianRepository.findAvailableVeterinarians(specialization, date, minTime, maxTime,
+                        AppointmentStatus.SLOT_RELEASING);
             }
         }
         if (specialization == null || specialization.isEmpty()) {
@@ -48,6 +48,10 @@ public class FeedBackMessage {
     public static final String INVALID_APPOINTMENT_DATE = "Không thể đặt lịch hẹn trong quá khứ.";
     public static final String INVALID_APPOINTMENT_TIME = "Không thể đặt lịch hẹn cho thời gian đã qua.";
     public static final String INVALID_APPOINTMENT_HOURS = "Lịch hẹn chỉ được phép trong khoảng thời gian từ 08:00 sáng đến 18:00 tối.";
+    public static final String APPOINTMENT_SLOT_TAKEN = "Bác sĩ thú y đã có lịch hẹn vào khung giờ này, vui lòng chọn thời gian khác.";
+    public static final String INVALID_CURSOR = "Con trỏ phân trang không hợp lệ.";
+    public static final String APPOINTMENT_STREAM_TIMEOUT = "Xuất danh sách lịch hẹn quá thời gian cho phép, vui lòng thu hẹp bộ lọc.";
+    public static final String INVALID_DATE_RANGE = "Khoảng thời gian không hợp lệ (tối đa 31 ngày).";
     /*
      * ======================== End Appointment
      * API=====================================
@@ -138,6 +142,13 @@ public class FeedBackMessage {
      */
     public static final String PHOTO_UPDATE_SUCCESS = "Cập nhật ảnh thành công";;
     public static final String PHOTO_REMOVE_SUCCESS = "Xóa ảnh thành công";
+    public static final String PHOTO_TOO_LARGE = "Ảnh vượt quá dung lượng cho phép";
+    public static final String PHOTO_UPLOAD_INVALID_SIZE = "Kích thước ảnh không hợp lệ";
+    public static final String PHOTO_UPLOAD_NOT_FOUND = "Không tìm thấy phiên tải ảnh lên";
+    public static final String PHOTO_UPLOAD_OFFSET_MISMATCH = "Vị trí tải lên không khớp, vui lòng tiếp tục từ vị trí đã xác nhận";
+    public static final String PHOTO_UPLOAD_BUSY = "Một phần khác của ảnh đang được tải lên";
+    public static final String PHOTO_UPLOAD_CANCELLED = "Đã hủy tải ảnh lên";
+    public static final String PHOTO_BATCH_TOO_LARGE = "Số lượng ảnh yêu cầu vượt quá giới hạn";
     /*
      * ======================== End Photo API =====================================
      */
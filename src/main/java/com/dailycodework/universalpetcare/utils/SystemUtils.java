@@ -1,10 +1,15 @@
 package com.dailycodework.universalpetcare.utils;
 
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
 
 public class SystemUtils {
     private static final int EXPIRATION_TIME  = 2;
+    public static final ZoneId CLINIC_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
 
     public static Date getExpirationTime() {
         Calendar calendar = Calendar.getInstance();
@@ -13,4 +18,35 @@ public class SystemUtils {
         return  new Date(calendar.getTime().getTime());
 
     }
+
+    /*
+     * Runs the action once the current transaction commits, or right away when
+     * there is no transaction, so in-memory views never see rolled back changes.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Runs the action if the current transaction rolls back; does nothing outside a transaction
+    public static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.dailycodework.universalpetcare.utils;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/*
+ * Assigns ids in the application before the INSERT, so Hibernate can batch the
+ * inserts (IDENTITY forces one round-trip per row). See TimeSortedIdGenerator.
+ */
+@IdGeneratorType(TimeSortedIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface TimeSortedId {
+}
@@ -0,0 +1,74 @@
+package com.dailycodework.universalpetcare.utils;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.time.Instant;
+import java.util.EnumSet;
+
+/*
+ * 53-bit time-sorted ids: 41 bits of milliseconds since 2025-01-01, 4 bits of node
+ * and 8 bits of sequence. Kept under 2^53 so ids stay exact as JavaScript numbers
+ * in the frontend, and always above the old AUTO_INCREMENT values.
+ * The node comes from pet-care.id.node and must differ between instances that
+ * share the database.
+ */
+public class TimeSortedIdGenerator implements BeforeExecutionGenerator {
+    public static final String NODE_SETTING = "pet-care.id.node";
+    static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private long lastMillis = -1;
+    private long sequence;
+
+    public TimeSortedIdGenerator(TimeSortedId config, Member member, CustomIdGeneratorCreationContext context) {
+        this(nodeFrom(context));
+    }
+
+    TimeSortedIdGenerator(long node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException(NODE_SETTING + " must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return nextId(System.currentTimeMillis());
+    }
+
+    synchronized long nextId(long nowMillis) {
+        // Never go backwards: a clock step back or a full sequence borrows the next millisecond
+        long millis = Math.max(nowMillis - EPOCH, lastMillis);
+        if (millis == lastMillis) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0) {
+                millis++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = millis;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    private static long nodeFrom(CustomIdGeneratorCreationContext context) {
+        Object value = context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSettings().get(NODE_SETTING);
+        return value == null || value.toString().isBlank() ? 0 : Long.parseLong(value.toString().trim());
+    }
+}
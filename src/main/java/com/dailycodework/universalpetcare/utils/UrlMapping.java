@@ -24,6 +24,8 @@ public class UrlMapping {
      */
     public static final String APPOINTMENTS = API + "/appointments";
     public static final String ALL_APPOINTMENT = "/all";
+    public static final String APPOINTMENT_PAGE = "/page";
+    public static final String APPOINTMENT_STREAM = "/stream";
     public static final String BOOK_APPOINTMENT = "/book-appointment";
     public static final String GET_APPOINTMENT_BY_ID = "/appointment/{id}/fetch/appointment";
     public static final String GET_APPOINTMENT_BY_NO = "/appointment/{appointmentNo}/appointment";
@@ -34,6 +36,7 @@ public class UrlMapping {
     public static final String DECLINE_APPOINTMENT = "/appointment/{id}/decline";
     public static final String COUNT_APPOINTMENT = "/count/appointments";
     public static final String GET_APPOINTMENT_SUMMARY = "/summary/appointments-summary";
+    public static final String REBUILD_APPOINTMENT_SUMMARY = "/summary/appointments-summary/rebuild";
 
     /*
      * ========================= End Appointment API
@@ -65,6 +68,21 @@ public class UrlMapping {
     public static final String UPDATE_PHOTO = "/photo/{photoId}/update";;
     public static final String DELETE_PHOTO = "/photo/{photoId}/{userId}/delete";
     public static final String GET_PHOTO_BY_ID = "/photo/{photoId}/photo";
+    public static final String GET_PHOTO_CACHE_STATS = "/photo/cache-stats";
+    public static final String GET_PHOTOS_BATCH = "/photo/batch";
+    public static final String START_PHOTO_UPLOAD = "/uploads";
+    public static final String PHOTO_UPLOAD = "/uploads/{uploadId}";
+
+    // Versioned by content hash, so clients may cache the URL for good
+    public static String photoUrl(Long photoId, String contentHash) {
+        String url = PHOTOS + GET_PHOTO_BY_ID.replace("{photoId}", String.valueOf(photoId));
+        return contentHash != null ? url + "?v=" + contentHash : url;
+    }
+
+    public static String photoUrl(Long photoId, String contentHash, int size) {
+        String url = photoUrl(photoId, contentHash);
+        return url + (contentHash != null ? "&" : "?") + "size=" + size;
+    }
     /*
      * ============================ End Photo API
      * ===================================
@@ -77,6 +95,7 @@ public class UrlMapping {
     public static final String REVIEWS = API + "/reviews";
     public static final String SUBMIT_REVIEW = "/submit-review";
     public static final String GET_USER_REVIEWS = "/user/{userId}/reviews";
+    public static final String GET_USER_REVIEW_FEED = "/user/{userId}/reviews/feed";
     public static final String UPDATE_REVIEW = "/review/{reviewId}/update";
     public static final String DELETE_REVIEW = "/review/{reviewId}/delete";
     public static final String GET_AVERAGE_RATING = "/vet/{vetId}/get-average-rating";
@@ -95,6 +114,8 @@ public class UrlMapping {
     public static final String SEARCH_VETERINARIAN_FOR_APPOINTMENT = "/search-veterinarian";
     public static final String GET_ALL_SPECIALIZATIONS = "vet/get-all-specialization";
     public static final String VET_AGGREGATE_BY_SPECIALIZATION = "vet/get-by-specialization";
+    public static final String GET_TOP_RATED_VETS = "/vet/top-rated";
+    public static final String GET_VET_FREE_SLOTS = "/vet/{vetId}/free-slots";
     /*
      * ============================ End Veterinarian API
      * ===================================
@@ -0,0 +1,40 @@
+package com.dailycodework.universalpetcare;
+
+import com.dailycodework.universalpetcare.model.Patient;
+import com.dailycodework.universalpetcare.model.User;
+import com.dailycodework.universalpetcare.model.Veterinarian;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+
+import java.util.UUID;
+
+// Users created by a test itself, so tests do not depend on the seeded accounts
+public final class TestUsers {
+    private TestUsers() {
+    }
+
+    public static Veterinarian vet(VeterinarianRepository repository, String specialization) {
+        Veterinarian vet = new Veterinarian();
+        fill(vet, "VET");
+        vet.setSpecialization(specialization);
+        return repository.save(vet);
+    }
+
+    public static Patient patient(PatientRepository repository) {
+        Patient patient = new Patient();
+        fill(patient, "PATIENT");
+        return repository.save(patient);
+    }
+
+    private static void fill(User user, String userType) {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        user.setFirstName("Test");
+        user.setLastName(userType + "-" + key);
+        user.setGender("Chưa xác định");
+        user.setPhoneNumber("0123456789");
+        user.setEmail(key + "@test.petcare");
+        user.setPassword("password");
+        user.setUserType(userType);
+        user.setEnabled(true);
+    }
+}
@@ -0,0 +1,203 @@
+package com.dailycodework.universalpetcare.controller;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.service.photo.IPhotoService;
+import com.dailycodework.universalpetcare.utils.UrlMapping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class PhotoControllerTests {
+    private static final String REVALIDATE = "no-cache, public";
+    private static final String IMMUTABLE = "max-age=31536000, public, immutable";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private IPhotoService photoService;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Long ownerId;
+    private Photo photo;
+    private byte[] image;
+    private String eTag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ownerId = TestUsers.patient(patientRepository).getId();
+        image = ("0123456789abcdefghijklmnopqrstuvwxyz-" + ownerId).getBytes(StandardCharsets.US_ASCII);
+        photo = photoService.savePhoto(new MockMultipartFile("file", "avatar.png", "image/png", image), ownerId);
+        eTag = "\"" + photo.getContentHash() + "\"";
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        photoService.deletePhoto(photo.getId(), ownerId);
+    }
+
+    @Test
+    void plainUrlIsServedWithETagAndRevalidated() throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, REVALIDATE))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, image.length))
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void versionedUrlIsCachedAsImmutable() throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest().param("v", photo.getContentHash()))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE));
+
+        // A stale hash in the URL is not trusted for a year
+        mockMvc.perform(asyncDispatch(started(photoRequest().param("v", "stale"))))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, REVALIDATE));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWithNotModified() throws Exception {
+        mockMvc.perform(photoRequest().header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, REVALIDATE))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(photoRequest().header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(photoRequest().header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void differentIfNoneMatchGetsTheFullPhoto() throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest().header(HttpHeaders.IF_NONE_MATCH, "\"other\""))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheByteCache() throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest()))).andExpect(content().bytes(image));
+        long hits = photoService.getCacheStats().getHitCount();
+
+        mockMvc.perform(asyncDispatch(started(photoRequest()))).andExpect(content().bytes(image));
+
+        assertThat(photoService.getCacheStats().getHitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void sizeWithoutAVariantFallsBackToTheOriginal() throws Exception {
+        // The test bytes are not a decodable image, so no variant can be made
+        mockMvc.perform(asyncDispatch(started(photoRequest().param("size", "64"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void firstBytesAreServedAsPartialContent() throws Exception {
+        assertRange("bytes=0-9", 0, 9);
+    }
+
+    @Test
+    void suffixRangeServesTheLastBytes() throws Exception {
+        assertRange("bytes=-10", image.length - 10, image.length - 1);
+    }
+
+    @Test
+    void openEndedRangeRunsToTheEnd() throws Exception {
+        assertRange("bytes=5-", 5, image.length - 1);
+    }
+
+    @Test
+    void endPastTheLastByteIsClamped() throws Exception {
+        assertRange("bytes=10-" + (image.length + 100), 10, image.length - 1);
+    }
+
+    @Test
+    void startAtOrPastTheLengthIsNotSatisfiable() throws Exception {
+        for (String range : new String[]{"bytes=" + image.length + "-", "bytes=" + (image.length + 5) + "-" + (image.length + 9)}) {
+            mockMvc.perform(photoRequest().header(HttpHeaders.RANGE, range))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + image.length));
+        }
+    }
+
+    @Test
+    void matchingIfRangeServesTheRange() throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest()
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, eTag))))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(image, 0, 10)));
+    }
+
+    @Test
+    void staleIfRangeServesTheWholePhoto() throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest()
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, image.length))
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void severalRangesServeTheWholePhoto() throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest().header(HttpHeaders.RANGE, "bytes=0-4,10-14"))))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(image));
+    }
+
+    private void assertRange(String range, int start, int end) throws Exception {
+        mockMvc.perform(asyncDispatch(started(photoRequest().header(HttpHeaders.RANGE, range))))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + end + "/" + image.length))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, end - start + 1))
+                .andExpect(content().bytes(Arrays.copyOfRange(image, start, end + 1)));
+    }
+
+    private MockHttpServletRequestBuilder photoRequest() {
+        return get(UrlMapping.PHOTOS + UrlMapping.GET_PHOTO_BY_ID, photo.getId());
+    }
+
+    // The body is a StreamingResponseBody, written after an async dispatch
+    private MvcResult started(MockHttpServletRequestBuilder builder) throws Exception {
+        return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+    }
+}
@@ -0,0 +1,102 @@
+package com.dailycodework.universalpetcare.repository;
+
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AppointmentBulkTransitionTests {
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+    private static final LocalTime NOW = LocalTime.of(10, 0);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void startedBeforeOnlyMovesRowsPastTheCutoffInTheSourceStatus() {
+        Long yesterday = save(AppointmentStatus.UP_COMING, TODAY.minusDays(1), LocalTime.of(17, 0));
+        Long justBefore = save(AppointmentStatus.UP_COMING, TODAY, NOW.minusMinutes(1));
+        Long atCutoff = save(AppointmentStatus.UP_COMING, TODAY, NOW);
+        Long tomorrow = save(AppointmentStatus.UP_COMING, TODAY.plusDays(1), LocalTime.of(8, 0));
+        Long otherStatus = save(AppointmentStatus.APPROVED, TODAY.minusDays(1), LocalTime.of(9, 0));
+
+        int updated = appointmentRepository.transitionStartedBefore(
+                AppointmentStatus.UP_COMING, AppointmentStatus.COMPLETED, TODAY, NOW);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(statusOf(yesterday)).isEqualTo(AppointmentStatus.COMPLETED);
+        assertThat(statusOf(justBefore)).isEqualTo(AppointmentStatus.COMPLETED);
+        assertThat(statusOf(atCutoff)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(statusOf(tomorrow)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(statusOf(otherStatus)).isEqualTo(AppointmentStatus.APPROVED);
+    }
+
+    @Test
+    void startedBetweenOnlyMovesRowsInsideTheWindow() {
+        LocalTime cutoff = NOW.minusMinutes(2);
+        Long beforeWindow = save(AppointmentStatus.UP_COMING, TODAY, cutoff.minusMinutes(1));
+        Long atWindowStart = save(AppointmentStatus.UP_COMING, TODAY, cutoff);
+        Long insideWindow = save(AppointmentStatus.UP_COMING, TODAY, NOW.minusMinutes(1));
+        Long atNow = save(AppointmentStatus.UP_COMING, TODAY, NOW);
+        Long yesterday = save(AppointmentStatus.UP_COMING, TODAY.minusDays(1), NOW.minusMinutes(1));
+        Long otherStatus = save(AppointmentStatus.APPROVED, TODAY, NOW.minusMinutes(1));
+
+        int updated = appointmentRepository.transitionStartedBetween(
+                AppointmentStatus.UP_COMING, AppointmentStatus.ON_GOING, TODAY, cutoff, NOW);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(statusOf(atWindowStart)).isEqualTo(AppointmentStatus.ON_GOING);
+        assertThat(statusOf(insideWindow)).isEqualTo(AppointmentStatus.ON_GOING);
+        assertThat(statusOf(beforeWindow)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(statusOf(atNow)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(statusOf(yesterday)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(statusOf(otherStatus)).isEqualTo(AppointmentStatus.APPROVED);
+    }
+
+    @Test
+    void notStartedOnlyMovesFutureRowsInTheSourceStatus() {
+        Long tomorrow = save(AppointmentStatus.APPROVED, TODAY.plusDays(1), LocalTime.of(8, 0));
+        Long justAfter = save(AppointmentStatus.APPROVED, TODAY, NOW.plusMinutes(1));
+        Long atNow = save(AppointmentStatus.APPROVED, TODAY, NOW);
+        Long yesterday = save(AppointmentStatus.APPROVED, TODAY.minusDays(1), LocalTime.of(17, 0));
+        Long otherStatus = save(AppointmentStatus.WAITING_FOR_APPROVAL, TODAY.plusDays(1), LocalTime.of(8, 0));
+
+        int updated = appointmentRepository.transitionNotStarted(
+                AppointmentStatus.APPROVED, AppointmentStatus.UP_COMING, TODAY, NOW);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(statusOf(tomorrow)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(statusOf(justAfter)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(statusOf(atNow)).isEqualTo(AppointmentStatus.APPROVED);
+        assertThat(statusOf(yesterday)).isEqualTo(AppointmentStatus.APPROVED);
+        assertThat(statusOf(otherStatus)).isEqualTo(AppointmentStatus.WAITING_FOR_APPROVAL);
+    }
+
+    private Long save(AppointmentStatus status, LocalDate date, LocalTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setStatus(status);
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        return entityManager.persistAndFlush(appointment).getId();
+    }
+
+    private AppointmentStatus statusOf(Long id) {
+        // Bulk updates bypass the persistence context, so read the row again
+        entityManager.clear();
+        return appointmentRepository.findById(id).orElseThrow().getStatus();
+    }
+}
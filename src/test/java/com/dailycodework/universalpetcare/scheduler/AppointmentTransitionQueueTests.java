@@ -0,0 +1,127 @@
+package com.dailycodework.universalpetcare.scheduler;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.AppointmentUpdateRequest;
+import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
+import com.dailycodework.universalpetcare.service.appointment.IAppointmentService;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+
+import static com.dailycodework.universalpetcare.scheduler.AppointmentTransitionQueue.nextTransitionAt;
+import static com.dailycodework.universalpetcare.scheduler.AppointmentTransitionQueue.targetStatus;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AppointmentTransitionQueueTests {
+    private static final Instant NOW = Instant.parse("2026-03-10T03:00:00Z");
+
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private AppointmentTransitionQueue transitionQueue;
+
+    @Test
+    void nextTransitionFollowsTheStatusRules() {
+        Instant future = NOW.plus(Duration.ofHours(3));
+        Instant past = NOW.minus(Duration.ofHours(3));
+
+        assertThat(nextTransitionAt(AppointmentStatus.WAITING_FOR_APPROVAL, future, NOW)).isEqualTo(future);
+        assertThat(nextTransitionAt(AppointmentStatus.APPROVED, future, NOW)).isEqualTo(NOW);
+        assertThat(nextTransitionAt(AppointmentStatus.APPROVED, past, NOW)).isNull();
+        assertThat(nextTransitionAt(AppointmentStatus.UP_COMING, future, NOW)).isEqualTo(future);
+        assertThat(nextTransitionAt(AppointmentStatus.UP_COMING, past, NOW)).isEqualTo(NOW);
+        assertThat(nextTransitionAt(AppointmentStatus.ON_GOING, NOW, NOW)).isEqualTo(NOW.plus(Duration.ofMinutes(2)));
+        assertThat(nextTransitionAt(AppointmentStatus.COMPLETED, future, NOW)).isNull();
+        assertThat(nextTransitionAt(AppointmentStatus.CANCELLED, future, NOW)).isNull();
+        assertThat(nextTransitionAt(null, future, NOW)).isNull();
+    }
+
+    @Test
+    void targetStatusFollowsTheStatusRules() {
+        assertThat(targetStatus(AppointmentStatus.WAITING_FOR_APPROVAL, NOW, NOW)).isEqualTo(AppointmentStatus.NOT_APPROVED);
+        assertThat(targetStatus(AppointmentStatus.APPROVED, NOW, NOW)).isEqualTo(AppointmentStatus.UP_COMING);
+        assertThat(targetStatus(AppointmentStatus.UP_COMING, NOW, NOW)).isEqualTo(AppointmentStatus.ON_GOING);
+        assertThat(targetStatus(AppointmentStatus.UP_COMING, NOW.minus(Duration.ofMinutes(3)), NOW))
+                .isEqualTo(AppointmentStatus.COMPLETED);
+        assertThat(targetStatus(AppointmentStatus.ON_GOING, NOW, NOW)).isEqualTo(AppointmentStatus.COMPLETED);
+    }
+
+    @Test
+    void staleEntryDoesNotMoveARescheduledAppointment() {
+        Long vetId = TestUsers.vet(veterinarianRepository, "Nội khoa").getId();
+        Long patientId = TestUsers.patient(patientRepository).getId();
+        LocalDate oldDate = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(2);
+        LocalTime oldTime = LocalTime.of(9, 0);
+        Long id = appointmentService.createAppointment(request(oldDate, oldTime), patientId, vetId).getId();
+
+        appointmentService.updateAppointment(id, new AppointmentUpdateRequest(
+                oldDate.plusDays(5).toString(), "14:00", "Dời lịch"));
+        // What an entry planned for the old date and time would run when it fires
+        int updated = appointmentRepository.transitionById(id, AppointmentStatus.WAITING_FOR_APPROVAL,
+                AppointmentStatus.NOT_APPROVED, oldDate, oldTime);
+
+        assertThat(updated).isZero();
+        assertThat(appointmentRepository.findById(id).orElseThrow().getStatus())
+                .isEqualTo(AppointmentStatus.WAITING_FOR_APPROVAL);
+    }
+
+    @Test
+    void entryReplansWhenTheRowWasMovedElsewhere() throws InterruptedException {
+        ZonedDateTime start = ZonedDateTime.now(SystemUtils.CLINIC_ZONE).plusSeconds(2).truncatedTo(ChronoUnit.SECONDS);
+        Appointment appointment = new Appointment();
+        appointment.setStatus(AppointmentStatus.WAITING_FOR_APPROVAL);
+        appointment.setAppointmentDate(start.toLocalDate());
+        appointment.setAppointmentTime(start.toLocalTime());
+        Long id = appointmentRepository.save(appointment).getId();
+        transitionQueue.track(appointment);
+        // Approved and moved on by another node; this queue still holds the WAITING_FOR_APPROVAL entry
+        appointmentRepository.transitionStatus(id, AppointmentStatus.WAITING_FOR_APPROVAL, AppointmentStatus.UP_COMING);
+
+        try {
+            // The stale entry's update is a no-op, and the UP_COMING -> ON_GOING step still fires on time
+            long deadline = System.currentTimeMillis() + 10_000;
+            AppointmentStatus status = AppointmentStatus.UP_COMING;
+            while (status != AppointmentStatus.ON_GOING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+                status = appointmentRepository.findById(id).orElseThrow().getStatus();
+            }
+            assertThat(status).isEqualTo(AppointmentStatus.ON_GOING);
+        } finally {
+            appointmentRepository.deleteById(id);
+        }
+    }
+
+    private static BookAppointmentRequest request(LocalDate date, LocalTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setReason("Khám định kỳ");
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        BookAppointmentRequest request = new BookAppointmentRequest();
+        request.setAppointment(appointment);
+        request.setPets(new ArrayList<>());
+        return request;
+    }
+}
@@ -0,0 +1,106 @@
+package com.dailycodework.universalpetcare.scheduler;
+
+import com.dailycodework.universalpetcare.repository.SchedulerLeaseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchedulerLeaseManagerTests {
+    private static final String LEASE = "appointment-status-sweep";
+    private static final Duration TTL = Duration.ofMinutes(25);
+    private static final Instant START = Instant.parse("2026-01-01T08:00:00Z");
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    private SchedulerLeaseManager node(String nodeId, Instant now) {
+        return new SchedulerLeaseManager(leaseRepository, Clock.fixed(now, ZoneOffset.UTC), true, nodeId);
+    }
+
+    @Test
+    void onlyOneNodeHoldsTheLease() {
+        assertThat(node("node-a", START).tryAcquire(LEASE, TTL)).isTrue();
+        assertThat(node("node-b", START.plusSeconds(60)).tryAcquire(LEASE, TTL)).isFalse();
+    }
+
+    @Test
+    void holderRenewsBeforeExpiry() {
+        assertThat(node("node-a", START).tryAcquire(LEASE, TTL)).isTrue();
+        assertThat(node("node-a", START.plus(Duration.ofMinutes(20))).tryAcquire(LEASE, TTL)).isTrue();
+        assertThat(node("node-b", START.plus(Duration.ofMinutes(30))).tryAcquire(LEASE, TTL)).isFalse();
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() {
+        assertThat(node("node-a", START).tryAcquire(LEASE, TTL)).isTrue();
+
+        Instant afterExpiry = START.plus(TTL).plusSeconds(1);
+        assertThat(node("node-b", afterExpiry).tryAcquire(LEASE, TTL)).isTrue();
+        assertThat(node("node-a", afterExpiry.plusSeconds(1)).tryAcquire(LEASE, TTL)).isFalse();
+        assertThat(leaseRepository.findById(LEASE)).get()
+                .satisfies(lease -> assertThat(lease.getOwner()).isEqualTo("node-b"));
+    }
+
+    @Test
+    void releasedLeaseIsFreeImmediately() {
+        SchedulerLeaseManager nodeA = node("node-a", START);
+        assertThat(nodeA.tryAcquire(LEASE, TTL)).isTrue();
+        nodeA.release(LEASE);
+
+        assertThat(node("node-b", START.plusSeconds(1)).tryAcquire(LEASE, TTL)).isTrue();
+    }
+
+    @Test
+    void nodesCreatingTheLeaseTogetherHaveOneWinner() throws Exception {
+        int nodes = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        try {
+            for (int round = 0; round < 20; round++) {
+                // Committed by the worker threads, so use a name no other test sees
+                String lease = "concurrent-create-" + UUID.randomUUID();
+                CountDownLatch ready = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < nodes; i++) {
+                    SchedulerLeaseManager manager = node("node-" + i, START);
+                    results.add(executor.submit(() -> {
+                        ready.await();
+                        return manager.tryAcquire(lease, TTL);
+                    }));
+                }
+                ready.countDown();
+                int acquired = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get(30, TimeUnit.SECONDS)) {
+                        acquired++;
+                    }
+                }
+                assertThat(acquired).as("nodes holding %s", lease).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void singleNodeModeNeverTouchesTheDatabase() {
+        SchedulerLeaseManager single = new SchedulerLeaseManager(leaseRepository, Clock.systemUTC(), false, "solo");
+        assertThat(single.tryAcquire(LEASE, TTL)).isTrue();
+        assertThat(leaseRepository.findById(LEASE)).isEmpty();
+    }
+}
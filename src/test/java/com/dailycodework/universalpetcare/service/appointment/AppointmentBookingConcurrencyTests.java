@@ -0,0 +1,338 @@
+package com.dailycodework.universalpetcare.service.appointment;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.exception.AlreadyExistsException;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.model.Patient;
+import com.dailycodework.universalpetcare.model.Pet;
+import com.dailycodework.universalpetcare.model.Veterinarian;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.AppointmentUpdateRequest;
+import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Fires bookings from many threads at once against the real service and database
+ * to check that a vet slot can only ever be taken by one appointment.
+ * The stress tests fire thousands of bookings and compare throughput over 1, N
+ * and 2N vets. They take minutes, so they only run with -Dbooking.stress=true;
+ * -Dbooking.stress.bookings and -Dbooking.stress.min-speedup tune the load and
+ * the expected gain. The default of 1 only requires that spreading the load over
+ * more vets is not slower, since the gain depends on cores and pool size.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class AppointmentBookingConcurrencyTests {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentBookingConcurrencyTests.class);
+    private static final int THREADS = 32;
+    private static final int STRESS_THREADS = 64;
+    private static final int VETS = 8;
+    private static final int PATIENTS = 4;
+    private static final long MAX_RUN_MILLIS = 5_000;
+    // Non-overlapping two-hour starts in one clinic day
+    private static final LocalTime[] DAY_STARTS = {LocalTime.of(8, 0), LocalTime.of(10, 0), LocalTime.of(12, 0),
+            LocalTime.of(14, 0), LocalTime.of(16, 0)};
+
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<Veterinarian> vets;
+    private List<Patient> patients;
+
+    @BeforeEach
+    void createUsers() {
+        vets = new ArrayList<>();
+        for (int i = 0; i < VETS; i++) {
+            vets.add(TestUsers.vet(veterinarianRepository, "Nội khoa"));
+        }
+        patients = new ArrayList<>();
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(TestUsers.patient(patientRepository));
+        }
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentBookingsGetsTheSameSlot() throws Exception {
+        Long vetId = vets.get(0).getId();
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(3);
+        LocalTime time = LocalTime.of(10, 0);
+
+        List<Callable<Void>> bookings = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Long patientId = patients.get(i % patients.size()).getId();
+            // Overlapping but not identical start times must collide as well
+            LocalTime start = time.plusMinutes((i % 3) * 10L);
+            bookings.add(() -> {
+                appointmentService.createAppointment(request(date, start), patientId, vetId);
+                return null;
+            });
+        }
+
+        Outcome outcome = runTogether(bookings, THREADS);
+
+        assertThat(outcome.failures()).isEmpty();
+        assertThat(outcome.booked()).isEqualTo(1);
+        assertThat(outcome.rejected()).isEqualTo(THREADS - 1);
+        assertThat(appointmentRepository.findBookedTimes(vetId, date, List.of())).hasSize(1);
+    }
+
+    @Test
+    void bookingsForDifferentVetsDoNotBlockEachOther() throws Exception {
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(4);
+        LocalTime[] starts = {LocalTime.of(8, 0), LocalTime.of(10, 0), LocalTime.of(12, 0), LocalTime.of(14, 0)};
+
+        List<Callable<Void>> bookings = new ArrayList<>();
+        for (Veterinarian vet : vets.subList(1, vets.size())) {
+            for (int i = 0; i < starts.length; i++) {
+                Long patientId = patients.get(i % patients.size()).getId();
+                LocalTime start = starts[i];
+                bookings.add(() -> {
+                    appointmentService.createAppointment(request(date, start), patientId, vet.getId());
+                    return null;
+                });
+            }
+        }
+
+        // Hold the first vet's lock for the whole run; the other vets must not wait for it
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> transactionTemplate.executeWithoutResult(tx -> {
+            veterinarianRepository.lockById(vets.get(0).getId());
+            locked.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        Outcome outcome;
+        long elapsedMillis;
+        try {
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+            long began = System.nanoTime();
+            outcome = runTogether(bookings, THREADS);
+            elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began);
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        assertThat(outcome.failures()).isEmpty();
+        assertThat(outcome.rejected()).isZero();
+        assertThat(outcome.booked()).isEqualTo(bookings.size());
+        // Well under the 10 s lock timeout: nothing waited on the held vet
+        assertThat(elapsedMillis).isLessThan(MAX_RUN_MILLIS);
+    }
+
+    @Test
+    void concurrentReschedulesCannotShareASlot() throws Exception {
+        Long vetId = vets.get(0).getId();
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(5);
+        LocalTime target = LocalTime.of(15, 0);
+        List<Long> appointmentIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Long patientId = patients.get(i % patients.size()).getId();
+            appointmentIds.add(appointmentService.createAppointment(
+                    request(date.plusDays(i + 1), LocalTime.of(9, 0)), patientId, vetId).getId());
+        }
+
+        List<Callable<Void>> moves = new ArrayList<>();
+        for (Long id : appointmentIds) {
+            moves.add(() -> {
+                appointmentService.updateAppointment(id,
+                        new AppointmentUpdateRequest(date.toString(), target.toString(), "Dời lịch"));
+                return null;
+            });
+        }
+        // A fresh booking overlapping the same slot races the moves
+        Long patientId = patients.get(0).getId();
+        moves.add(() -> {
+            appointmentService.createAppointment(request(date, target.plusMinutes(30)), patientId, vetId);
+            return null;
+        });
+
+        Outcome outcome = runTogether(moves, THREADS);
+
+        assertThat(outcome.failures()).isEmpty();
+        assertThat(outcome.booked()).isEqualTo(1);
+        assertThat(outcome.rejected()).isEqualTo(moves.size() - 1);
+        assertThat(appointmentRepository.findBookedTimes(vetId, date, List.of())).hasSize(1);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "booking.stress", matches = "true")
+    void thousandsOfConcurrentBookingsForOneSlotHaveOneWinner() throws Exception {
+        int load = Integer.getInteger("booking.stress.bookings", 2_000);
+        Long vetId = vets.get(0).getId();
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(3);
+
+        List<Callable<Void>> bookings = new ArrayList<>();
+        for (int i = 0; i < load; i++) {
+            Long patientId = patients.get(i % patients.size()).getId();
+            LocalTime start = LocalTime.of(10, 0).plusMinutes((i % 12) * 10L);
+            bookings.add(() -> {
+                appointmentService.createAppointment(request(date, start), patientId, vetId);
+                return null;
+            });
+        }
+
+        Outcome outcome = runTogether(bookings, STRESS_THREADS);
+
+        assertThat(outcome.failures()).isEmpty();
+        assertThat(outcome.booked()).isEqualTo(1);
+        assertThat(outcome.rejected()).isEqualTo(load - 1);
+        assertThat(appointmentRepository.findBookedTimes(vetId, date, List.of())).hasSize(1);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "booking.stress", matches = "true")
+    void bookingThroughputGrowsWithTheNumberOfVets() throws Exception {
+        int load = Integer.getInteger("booking.stress.bookings", 2_000);
+        double minSpeedup = Double.parseDouble(System.getProperty("booking.stress.min-speedup", "1"));
+        int spread = VETS / 2;
+        // Each run books its own range of days; a warm-up run first so the measured ones do not pay for it
+        int warmUp = load / 10;
+        int firstDay = 10 + daysFor(warmUp);
+        bookingsPerSecond(warmUp, 1, 10);
+
+        double oneVet = bookingsPerSecond(load, 1, firstDay);
+        double someVets = bookingsPerSecond(load, spread, firstDay + daysFor(load));
+        double moreVets = bookingsPerSecond(load, spread * 2, firstDay + 2 * daysFor(load));
+        log.info("{} bookings from {} threads: {} vet(s) {}/s, {} vets {}/s, {} vets {}/s", load, STRESS_THREADS,
+                1, String.format("%.0f", oneVet), spread, String.format("%.0f", someVets),
+                spread * 2, String.format("%.0f", moreVets));
+
+        assertThat(someVets).isGreaterThanOrEqualTo(oneVet * minSpeedup);
+        assertThat(moreVets).isGreaterThanOrEqualTo(oneVet * minSpeedup);
+    }
+
+    // Books `load` free slots spread evenly over the first `vetCount` vets, starting `firstDay` days ahead
+    private double bookingsPerSecond(int load, int vetCount, int firstDay) throws Exception {
+        LocalDate from = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(firstDay);
+        List<Callable<Void>> bookings = new ArrayList<>();
+        for (int i = 0; i < load; i++) {
+            Long vetId = vets.get(i % vetCount).getId();
+            Long patientId = patients.get(i % patients.size()).getId();
+            int slot = i / vetCount;
+            LocalDate date = from.plusDays(slot / DAY_STARTS.length);
+            LocalTime start = DAY_STARTS[slot % DAY_STARTS.length];
+            bookings.add(() -> {
+                appointmentService.createAppointment(request(date, start), patientId, vetId);
+                return null;
+            });
+        }
+
+        long began = System.nanoTime();
+        Outcome outcome = runTogether(bookings, STRESS_THREADS);
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        assertThat(outcome.failures()).isEmpty();
+        assertThat(outcome.booked()).isEqualTo(load);
+        return load / seconds;
+    }
+
+    private static int daysFor(int load) {
+        return load / DAY_STARTS.length + 1;
+    }
+
+    private Outcome runTogether(List<Callable<Void>> bookings, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Callable<Void> booking : bookings) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        ready.await();
+                        callRetryingIdentityClashes(booking);
+                        booked.incrementAndGet();
+                    } catch (AlreadyExistsException e) {
+                        rejected.incrementAndGet();
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            ready.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+        } catch (ExecutionException | TimeoutException e) {
+            failures.add(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Outcome(booked.get(), rejected.get(), failures);
+    }
+
+    /*
+     * H2 2.2 in MySQL mode occasionally hands two concurrent inserts the same
+     * identity value; MySQL's AUTO_INCREMENT never does. The losing transaction has
+     * rolled back, so the booking is simply tried again.
+     */
+    private static void callRetryingIdentityClashes(Callable<Void> booking) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                booking.call();
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == 3 || !String.valueOf(e.getMessage()).contains("PRIMARY KEY ON")) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static BookAppointmentRequest request(LocalDate date, LocalTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setReason("Khám định kỳ");
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        Pet pet = new Pet();
+        pet.setName("Milo");
+        pet.setType("Chó");
+        pet.setColor("Nâu");
+        pet.setBreed("Poodle");
+        pet.setAge(2);
+        BookAppointmentRequest request = new BookAppointmentRequest();
+        request.setAppointment(appointment);
+        request.setPets(new ArrayList<>(List.of(pet)));
+        return request;
+    }
+
+    private record Outcome(int booked, int rejected, List<Throwable> failures) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.dailycodework.universalpetcare.service.appointment;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.exception.AlreadyExistsException;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.model.Pet;
+import com.dailycodework.universalpetcare.model.User;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ * Pins the statement budget of the booking path using Hibernate statistics.
+ * Accepted: sender check, vet lock, day schedule read + write, appointment insert, one
+ * batched insert for all pets whatever their number, and the status counter update.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class AppointmentBookingStatementTests {
+    private static final int PETS = 2;
+    private static final long ACCEPTED_BUDGET = 7;
+
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long vetId;
+    private Long patientId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        vetId = TestUsers.vet(veterinarianRepository, "Nội khoa").getId();
+        patientId = TestUsers.patient(patientRepository).getId();
+        statistics.clear();
+    }
+
+    @Test
+    void acceptedBookingStaysWithinStatementBudget() {
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(6);
+
+        Appointment appointment = appointmentService.createAppointment(request(date, LocalTime.of(9, 0)), patientId, vetId);
+
+        assertThat(appointment.getId()).isNotNull();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(ACCEPTED_BUDGET);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2 + PETS);
+        assertNoUserOrPhotoLoaded();
+    }
+
+    @Test
+    void bookingRejectedByValidationRunsNoStatements() {
+        LocalDate yesterday = LocalDate.now(SystemUtils.CLINIC_ZONE).minusDays(1);
+
+        assertThatThrownBy(() -> appointmentService.createAppointment(request(yesterday, LocalTime.of(9, 0)), patientId, vetId))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void bookingRejectedBySlotConflictWritesNothing() {
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(7);
+        appointmentService.createAppointment(request(date, LocalTime.of(14, 0)), patientId, vetId);
+        statistics.clear();
+
+        assertThatThrownBy(() -> appointmentService.createAppointment(request(date, LocalTime.of(15, 0)), patientId, vetId))
+                .isInstanceOf(AlreadyExistsException.class);
+
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertNoUserOrPhotoLoaded();
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPetCount() {
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(8);
+        LocalTime[] starts = {LocalTime.of(8, 0), LocalTime.of(10, 0), LocalTime.of(12, 0), LocalTime.of(14, 0)};
+        int[] petCounts = {1, 5, 20, 50};
+        for (int i = 0; i < petCounts.length; i++) {
+            statistics.clear();
+            appointmentService.createAppointment(request(date, starts[i], petCounts[i]), patientId, vetId);
+            // With one INSERT per pet this would be ACCEPTED_BUDGET - 1 + petCount
+            assertThat(statistics.getPrepareStatementCount())
+                    .as("statements for a booking with %d pet(s)", petCounts[i])
+                    .isEqualTo(ACCEPTED_BUDGET);
+            assertThat(statistics.getEntityStatistics(Pet.class.getName()).getInsertCount()).isEqualTo(petCounts[i]);
+        }
+    }
+
+    private void assertNoUserOrPhotoLoaded() {
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Photo.class.getName()).getLoadCount()).isZero();
+    }
+
+    private static BookAppointmentRequest request(LocalDate date, LocalTime time) {
+        return request(date, time, PETS);
+    }
+
+    private static BookAppointmentRequest request(LocalDate date, LocalTime time, int petCount) {
+        Appointment appointment = new Appointment();
+        appointment.setReason("Tiêm phòng");
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < petCount; i++) {
+            Pet pet = new Pet();
+            pet.setName("Pet " + i);
+            pet.setType("Mèo");
+            pet.setAge(1 + i);
+            pets.add(pet);
+        }
+        BookAppointmentRequest request = new BookAppointmentRequest();
+        request.setAppointment(appointment);
+        request.setPets(pets);
+        return request;
+    }
+}
@@ -0,0 +1,117 @@
+package com.dailycodework.universalpetcare.service.appointment;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.dto.AppointmentRowDto;
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.model.User;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.AppointmentFilterRequest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AppointmentPageTests {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 4, 1);
+    private static final int ROWS = 30;
+    private static final int PAGE_SIZE = 7;
+
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private AppointmentFilterRequest filter;
+    private List<AppointmentRowDto> expected;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User vet = TestUsers.vet(veterinarianRepository, "Nội khoa");
+        // Several rows share each date, so the id tie-breaker decides the order within a day
+        List<Appointment> saved = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setAppointmentDate(FIRST_DAY.plusDays(i % 5));
+            appointment.setAppointmentTime(LocalTime.of(8 + i % 10, 0));
+            appointment.setStatus(i % 3 == 0 ? AppointmentStatus.APPROVED : AppointmentStatus.WAITING_FOR_APPROVAL);
+            appointment.setVeterinarian(vet);
+            saved.add(appointment);
+        }
+        expected = appointmentRepository.saveAll(saved).stream()
+                .sorted(Comparator.comparing(Appointment::getAppointmentDate).thenComparing(Appointment::getId))
+                .map(a -> new AppointmentRowDto(a.getId(), a.getAppointmentNo(), a.getAppointmentDate(),
+                        a.getAppointmentTime(), a.getReason(), a.getStatus(), null, vet.getId()))
+                .toList();
+        filter = new AppointmentFilterRequest();
+        filter.setVetId(vet.getId());
+    }
+
+    @Test
+    void pageWalkReturnsEveryRowOnceInOrder() {
+        statistics.clear();
+
+        List<AppointmentRowDto> walked = walk(filter);
+
+        assertThat(walked).containsExactlyElementsOf(expected);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo((ROWS + PAGE_SIZE - 1) / PAGE_SIZE);
+        // Absent filters are left out of the query rather than passed as null
+        assertThat(statistics.getQueries()).noneMatch(hql -> hql.toUpperCase().contains("IS NULL"));
+    }
+
+    @Test
+    void pageWalkAppliesTheStatusAndDateFilters() {
+        filter.setStatus(AppointmentStatus.APPROVED);
+        filter.setFrom(FIRST_DAY.plusDays(1));
+        filter.setTo(FIRST_DAY.plusDays(3));
+
+        assertThat(walk(filter)).containsExactlyElementsOf(expected.stream()
+                .filter(row -> row.getStatus() == AppointmentStatus.APPROVED)
+                .filter(row -> !row.getAppointmentDate().isBefore(FIRST_DAY.plusDays(1)))
+                .filter(row -> !row.getAppointmentDate().isAfter(FIRST_DAY.plusDays(3)))
+                .toList());
+    }
+
+    @Test
+    void streamMatchesThePageWalk() {
+        List<AppointmentRowDto> streamed = new ArrayList<>();
+
+        appointmentService.streamAppointments(filter, streamed::add);
+
+        assertThat(streamed).containsExactlyElementsOf(expected);
+    }
+
+    private List<AppointmentRowDto> walk(AppointmentFilterRequest filter) {
+        List<AppointmentRowDto> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDto<AppointmentRowDto> page = appointmentService.getAppointmentPage(filter, cursor, PAGE_SIZE);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            rows.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return rows;
+    }
+}
@@ -0,0 +1,177 @@
+package com.dailycodework.universalpetcare.service.appointment;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.AppointmentStatusCountRepository;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AppointmentStatusCounterTests {
+    private static final int THREADS = 12;
+
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private AppointmentStatusCounter statusCounter;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentStatusCountRepository countRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Other tests insert appointment rows directly, bypassing the counters
+        statusCounter.rebuild();
+    }
+
+    @Test
+    void countersFollowEveryKindOfStatusChange() throws Exception {
+        Long vetId = TestUsers.vet(veterinarianRepository, "Nội khoa").getId();
+        Long patientId = TestUsers.patient(patientRepository).getId();
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(10);
+
+        Appointment cancelled = book(date, LocalTime.of(8, 0), patientId, vetId);
+        Appointment approved = book(date, LocalTime.of(10, 0), patientId, vetId);
+        Appointment declined = book(date, LocalTime.of(12, 0), patientId, vetId);
+        Appointment deleted = book(date, LocalTime.of(14, 0), patientId, vetId);
+        book(date, LocalTime.of(16, 0), patientId, vetId);
+
+        appointmentService.cancelAppointment(cancelled.getId());
+        appointmentService.approveAppointment(approved.getId());
+        appointmentService.declineAppointment(declined.getId());
+        appointmentService.deleteAppointment(deleted.getId());
+        // Bulk sweep moves the approved future appointment to UP_COMING
+        appointmentService.applyStatusTransitions();
+
+        assertThat(appointmentRepository.findById(approved.getId()).orElseThrow().getStatus())
+                .isEqualTo(AppointmentStatus.UP_COMING);
+        awaitCountsMatchTable();
+    }
+
+    @Test
+    void concurrentDecisionsMoveAndCountTheAppointmentOnce() throws Exception {
+        Long vetId = TestUsers.vet(veterinarianRepository, "Nội khoa").getId();
+        Long patientId = TestUsers.patient(patientRepository).getId();
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(11);
+        Long id = book(date, LocalTime.of(9, 0), patientId, vetId).getId();
+        Map<AppointmentStatus, Long> before = statusCounter.getCounts();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Appointment>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                Callable<Appointment> decision = switch (i % 3) {
+                    case 0 -> () -> appointmentService.cancelAppointment(id);
+                    case 1 -> () -> appointmentService.approveAppointment(id);
+                    default -> () -> appointmentService.declineAppointment(id);
+                };
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return decision.call();
+                }));
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        List<Appointment> winners = new ArrayList<>();
+        int rejected = 0;
+        for (Future<Appointment> result : results) {
+            try {
+                winners.add(result.get());
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+                rejected++;
+            }
+        }
+        assertThat(winners).hasSize(1);
+        assertThat(rejected).isEqualTo(THREADS - 1);
+        assertThat(winners.get(0).getStatus()).isIn(
+                AppointmentStatus.CANCELLED, AppointmentStatus.APPROVED, AppointmentStatus.NOT_APPROVED);
+
+        // An approval may already have been moved on to UP_COMING by the queue, so compare totals
+        Map<AppointmentStatus, Long> after = statusCounter.getCounts();
+        assertThat(after.get(AppointmentStatus.WAITING_FOR_APPROVAL))
+                .isEqualTo(before.get(AppointmentStatus.WAITING_FOR_APPROVAL) - 1);
+        assertThat(total(after)).isEqualTo(total(before));
+        awaitCountsMatchTable();
+    }
+
+    @Test
+    void rebuildRepairsDriftedCounters() {
+        countRepository.adjust(AppointmentStatus.COMPLETED, 42);
+
+        statusCounter.rebuild();
+
+        assertThat(statusCounter.getCounts()).isEqualTo(actualCounts());
+    }
+
+    // The transition queue may still be moving an approval on while the two are read
+    private void awaitCountsMatchTable() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!statusCounter.getCounts().equals(actualCounts()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(statusCounter.getCounts()).isEqualTo(actualCounts());
+    }
+
+    private static long total(Map<AppointmentStatus, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private Map<AppointmentStatus, Long> actualCounts() {
+        Map<AppointmentStatus, Long> counts = new EnumMap<>(AppointmentStatus.class);
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : appointmentRepository.countByStatus()) {
+            counts.put((AppointmentStatus) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private Appointment book(LocalDate date, LocalTime time, Long patientId, Long vetId) {
+        Appointment appointment = new Appointment();
+        appointment.setReason("Kiểm tra sức khỏe");
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        BookAppointmentRequest request = new BookAppointmentRequest();
+        request.setAppointment(appointment);
+        request.setPets(new ArrayList<>());
+        return appointmentService.createAppointment(request, patientId, vetId);
+    }
+}
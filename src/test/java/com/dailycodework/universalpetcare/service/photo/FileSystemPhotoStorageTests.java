@@ -0,0 +1,134 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemPhotoStorageTests {
+    private static final byte[] IMAGE = "not really a png, but bytes all the same".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private FileSystemPhotoStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new FileSystemPhotoStorage(directory.toString());
+    }
+
+    @Test
+    void stagedContentIsHashedAndReadBackAfterPublish() throws Exception {
+        StagedContent staged = storage.stage(new ByteArrayInputStream(IMAGE));
+
+        assertThat(staged.hash()).isEqualTo(sha256(IMAGE));
+        assertThat(staged.size()).isEqualTo(IMAGE.length);
+        assertThat(storage.exists(staged.hash())).isFalse();
+
+        storage.publish(staged);
+
+        assertThat(storage.exists(staged.hash())).isTrue();
+        assertThat(storage.size(staged.hash())).isEqualTo(IMAGE.length);
+        try (InputStream in = storage.open(staged.hash())) {
+            assertThat(in.readAllBytes()).isEqualTo(IMAGE);
+        }
+        assertThat(Files.list(directory.resolve("incoming"))).isEmpty();
+    }
+
+    @Test
+    void publishingTheSameBytesAgainKeepsOneCopy() throws Exception {
+        StagedContent first = storage.stage(new ByteArrayInputStream(IMAGE));
+        storage.publish(first);
+        StagedContent second = storage.stage(new ByteArrayInputStream(IMAGE));
+
+        storage.publish(second);
+        storage.discard(second);
+
+        assertThat(second.hash()).isEqualTo(first.hash());
+        assertThat(storage.size(first.hash())).isEqualTo(IMAGE.length);
+        assertThat(Files.list(directory.resolve("incoming"))).isEmpty();
+    }
+
+    @Test
+    void transferToCopiesTheRequestedRange() throws Exception {
+        StagedContent staged = storage.stage(new ByteArrayInputStream(IMAGE));
+        storage.publish(staged);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        storage.transferTo(staged.hash(), 4, 10, Channels.newChannel(out));
+
+        assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(IMAGE, 4, 14));
+        assertThatThrownBy(() -> storage.transferTo(staged.hash(), IMAGE.length - 2, 10,
+                Channels.newChannel(new ByteArrayOutputStream())))
+                .isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void variantsAreStoredBesideTheOriginalAndDeletedWithIt() throws Exception {
+        StagedContent staged = storage.stage(new ByteArrayInputStream(IMAGE));
+        storage.publish(staged);
+        byte[] thumbnail = "small".getBytes(StandardCharsets.UTF_8);
+
+        storage.storeVariant(staged.hash(), 128, new ByteArrayInputStream(thumbnail));
+        String variantKey = PhotoStorage.variantKey(staged.hash(), 128);
+        try (InputStream in = storage.open(variantKey)) {
+            assertThat(in.readAllBytes()).isEqualTo(thumbnail);
+        }
+
+        storage.delete(staged.hash());
+
+        assertThat(storage.exists(staged.hash())).isFalse();
+        assertThat(storage.exists(variantKey)).isFalse();
+    }
+
+    @Test
+    void partsResumeFromTheAcknowledgedOffset() throws Exception {
+        String uploadId = UUID.randomUUID().toString();
+        assertThat(storage.partSize(uploadId)).isZero();
+
+        storage.appendPart(uploadId, 0, new ByteArrayInputStream(Arrays.copyOfRange(IMAGE, 0, 20)));
+        // A retried chunk starts over at its offset and replaces whatever followed it
+        long size = storage.appendPart(uploadId, 10, new ByteArrayInputStream(Arrays.copyOfRange(IMAGE, 10, IMAGE.length)));
+
+        assertThat(size).isEqualTo(IMAGE.length);
+        StagedContent staged = storage.stagePart(uploadId);
+        assertThat(staged.hash()).isEqualTo(sha256(IMAGE));
+        assertThatThrownBy(() -> storage.appendPart(uploadId, IMAGE.length + 1, new ByteArrayInputStream(IMAGE)))
+                .isInstanceOf(IllegalStateException.class);
+
+        storage.deletePart(uploadId);
+        storage.discard(staged);
+        assertThat(storage.partSize(uploadId)).isZero();
+    }
+
+    @Test
+    void keysOutsideTheStoreAreRejected() {
+        assertThatThrownBy(() -> storage.open("../application.properties"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.appendPart("../x", 0, new ByteArrayInputStream(IMAGE)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.discard(new StagedContent(sha256(IMAGE), 1, "../../etc/passwd")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,97 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.dto.PhotoSummaryDto;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ * A page of vet cards asks for all of its photos at once: one IN query for the
+ * metadata, thumbnails inlined from storage, no per-photo statements.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class PhotoBatchTests {
+    @Autowired
+    private IPhotoService photoService;
+    @Autowired
+    private PhotoVariantService variantService;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Photo> photos = new ArrayList<>();
+    private final List<Long> photoOwners = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (int i = 0; i < photos.size(); i++) {
+            photoService.deletePhoto(photos.get(i).getId(), photoOwners.get(i));
+        }
+    }
+
+    @Test
+    void returnsMetadataAndThumbnailsFromOneQuery() throws Exception {
+        Photo first = savePhoto(png(400, 300));
+        Photo second = savePhoto(png(120, 200));
+        // Waits for every variant queued by the uploads, so no resize is counted below
+        for (int size : PhotoVariantService.SIZES) {
+            assertThat(variantService.ensure(first.getContentHash(), size)).isTrue();
+            assertThat(variantService.ensure(second.getContentHash(), size)).isTrue();
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<PhotoSummaryDto> summaries = photoService.getPhotoSummaries(
+                List.of(second.getId(), Long.MAX_VALUE, first.getId(), second.getId()), 64);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(summaries).extracting(PhotoSummaryDto::getId).containsExactly(second.getId(), first.getId());
+        for (PhotoSummaryDto summary : summaries) {
+            assertThat(summary.getThumbnail()).isNotEmpty();
+            assertThat(ImageIO.read(new ByteArrayInputStream(summary.getThumbnail())).getWidth()).isLessThanOrEqualTo(64);
+            assertThat(summary.getThumbnailUrl()).endsWith("?v=" + summary.getContentHash() + "&size=64");
+        }
+    }
+
+    @Test
+    void rejectsOversizedBatches() {
+        List<Long> ids = LongStream.rangeClosed(1, PhotoService.MAX_BATCH_SIZE + 1).boxed().toList();
+        assertThatThrownBy(() -> photoService.getPhotoSummaries(ids, 64)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Photo savePhoto(MockMultipartFile file) throws Exception {
+        Long ownerId = TestUsers.patient(patientRepository).getId();
+        Photo photo = photoService.savePhoto(file, ownerId);
+        photos.add(photo);
+        photoOwners.add(ownerId);
+        return photo;
+    }
+
+    private static MockMultipartFile png(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return new MockMultipartFile("file", "card.png", "image/png", out.toByteArray());
+    }
+}
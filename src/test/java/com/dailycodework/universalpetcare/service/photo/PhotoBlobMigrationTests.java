@@ -0,0 +1,142 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * The entity no longer maps the legacy image column, so each test adds it back
+ * and fills it the way the old schema did.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class PhotoBlobMigrationTests {
+    private static final int LEGACY_ROWS = 25;
+
+    @Autowired
+    private PhotoBlobMigration migration;
+    @Autowired
+    private PhotoStorage photoStorage;
+    @Autowired
+    private PhotoContentRegistry contentRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> photoIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("ALTER TABLE photo ADD COLUMN image BLOB");
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Long id : photoIds) {
+                String hash = jdbcTemplate.queryForObject("SELECT content_hash FROM photo WHERE id = ?", String.class, id);
+                jdbcTemplate.update("DELETE FROM photo WHERE id = ?", id);
+                contentRegistry.release(hash);
+            }
+        });
+        jdbcTemplate.execute("ALTER TABLE photo DROP COLUMN image");
+    }
+
+    @Test
+    void migrateAllMovesEveryLegacyRowAcrossBatches() throws Exception {
+        List<byte[]> images = new ArrayList<>();
+        for (int i = 0; i < LEGACY_ROWS; i++) {
+            byte[] image = ("legacy image " + i + " " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+            images.add(image);
+            insertLegacy(image);
+        }
+
+        migration.migrateAll();
+
+        for (int i = 0; i < LEGACY_ROWS; i++) {
+            assertMigrated(photoIds.get(i), images.get(i));
+        }
+        // Finished rows are skipped on the next run
+        migration.migrateAll();
+        assertThat(refCount(sha256(images.get(0)))).isEqualTo(1);
+    }
+
+    @Test
+    void migrateMovesASingleRowOnDemand() throws Exception {
+        byte[] image = ("requested early " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        Long id = insertLegacy(image);
+
+        assertThat(migration.migrate(id)).isTrue();
+        assertMigrated(id, image);
+        assertThat(migration.migrate(id)).isFalse();
+    }
+
+    @Test
+    void identicalLegacyImagesShareOneCopy() throws Exception {
+        byte[] image = ("shared " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        Long first = insertLegacy(image);
+        Long second = insertLegacy(image);
+
+        migration.migrateAll();
+
+        assertMigrated(first, image);
+        assertMigrated(second, image);
+        assertThat(refCount(sha256(image))).isEqualTo(2);
+    }
+
+    private void assertMigrated(Long id, byte[] image) throws Exception {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT content_hash, file_size, image FROM photo WHERE id = ?", id);
+        String hash = sha256(image);
+        assertThat(row.get("CONTENT_HASH")).isEqualTo(hash);
+        assertThat(((Number) row.get("FILE_SIZE")).longValue()).isEqualTo(image.length);
+        assertThat(row.get("IMAGE")).isNull();
+        try (InputStream in = photoStorage.open(hash)) {
+            assertThat(in.readAllBytes()).isEqualTo(image);
+        }
+    }
+
+    private Long insertLegacy(byte[] image) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO photo (file_type, file_name, image) VALUES ('image/png', 'legacy.png', ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setBytes(1, image);
+            return statement;
+        }, keys);
+        Long id = keys.getKey().longValue();
+        photoIds.add(id);
+        return id;
+    }
+
+    private long refCount(String hash) {
+        return jdbcTemplate.queryForObject(
+                "SELECT ref_count FROM photo_content_count WHERE content_hash = ?", Long.class, hash);
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
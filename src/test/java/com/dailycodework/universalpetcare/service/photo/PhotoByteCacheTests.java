@@ -0,0 +1,123 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.dto.PhotoCacheStatsDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhotoByteCacheTests {
+    private static final DataSize MAX = DataSize.ofKilobytes(64);
+    private static final int ENTRY = 1024;
+    private static final int CALLERS = 8;
+
+    private final PhotoByteCache cache = new PhotoByteCache(MAX);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void secondReadIsAHit() throws IOException {
+        byte[] first = cache.get("a", ENTRY, () -> load(ENTRY));
+        byte[] second = cache.get("a", ENTRY, () -> load(ENTRY));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        PhotoCacheStatsDto stats = cache.getStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getCachedBytes()).isEqualTo(ENTRY);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<byte[]>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return cache.get("shared", ENTRY, () -> {
+                        loading.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        return load(ENTRY);
+                    });
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        release.countDown();
+
+        for (CompletableFuture<byte[]> caller : callers) {
+            assertThat(caller.get(5, TimeUnit.SECONDS)).hasSize(ENTRY);
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void entriesAboveTheShareAreLoadedButNotKept() throws IOException {
+        long largest = MAX.toBytes() / 16;
+
+        assertThat(cache.accepts(largest)).isTrue();
+        assertThat(cache.accepts(largest + 1)).isFalse();
+        cache.get("big", largest + 1, () -> load((int) largest + 1));
+        cache.get("big", largest + 1, () -> load((int) largest + 1));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getStats().getEntries()).isZero();
+    }
+
+    @Test
+    void weightStaysUnderTheCapAndEvictionsAreCounted() throws IOException {
+        int entries = (int) (MAX.toBytes() / ENTRY) * 3;
+        for (int i = 0; i < entries; i++) {
+            cache.get("key-" + i, ENTRY, () -> load(ENTRY));
+        }
+
+        PhotoCacheStatsDto stats = cache.getStats();
+        assertThat(stats.getCachedBytes()).isLessThanOrEqualTo(MAX.toBytes());
+        assertThat(stats.getMaxBytes()).isEqualTo(MAX.toBytes());
+        assertThat(stats.getEvictionCount()).isGreaterThan(0);
+        assertThat(stats.getEvictedBytes()).isEqualTo(stats.getEvictionCount() * ENTRY);
+        assertThat(stats.getCachedBytes() + stats.getEvictedBytes()).isEqualTo((long) entries * ENTRY);
+    }
+
+    @Test
+    void failedLoadIsThrownAndNotCached() throws IOException {
+        assertThatThrownBy(() -> cache.get("broken", ENTRY, () -> {
+            throw new IOException("disk gone");
+        })).isInstanceOf(IOException.class).hasMessage("disk gone");
+
+        assertThat(cache.get("broken", ENTRY, () -> load(ENTRY))).hasSize(ENTRY);
+    }
+
+    @Test
+    void evictDropsTheContentAndItsVariants() throws IOException {
+        String hash = "h".repeat(64);
+        cache.get(hash, ENTRY, () -> load(ENTRY));
+        cache.get(PhotoStorage.variantKey(hash, 64), ENTRY, () -> load(ENTRY));
+
+        cache.evict(hash);
+
+        assertThat(cache.getStats().getEntries()).isZero();
+    }
+
+    private byte[] load(int size) {
+        loads.incrementAndGet();
+        return new byte[size];
+    }
+}
@@ -0,0 +1,163 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.model.PhotoContentCount;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.PhotoContentCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class PhotoContentRegistryTests {
+    @Autowired
+    private IPhotoService photoService;
+    @Autowired
+    private PhotoStorage photoStorage;
+    @Autowired
+    private PhotoContentCountRepository countRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PhotoContentRegistry contentRegistry;
+
+    private Long firstUserId;
+    private Long secondUserId;
+
+    @BeforeEach
+    void setUp() {
+        firstUserId = patientRepository.findAll().get(5).getId();
+        secondUserId = patientRepository.findAll().get(6).getId();
+    }
+
+    @Test
+    void identicalUploadsShareOneCopyUntilTheLastReferenceGoes() throws Exception {
+        byte[] avatar = "same avatar bytes".getBytes();
+        Photo first = photoService.savePhoto(file(avatar), firstUserId);
+        Photo second = photoService.savePhoto(file(avatar), secondUserId);
+        String hash = first.getContentHash();
+
+        assertThat(second.getContentHash()).isEqualTo(hash);
+        assertThat(refCount(hash)).isEqualTo(2);
+
+        photoService.deletePhoto(first.getId(), firstUserId);
+        assertThat(refCount(hash)).isEqualTo(1);
+        assertThat(photoStorage.exists(hash)).isTrue();
+
+        photoService.deletePhoto(second.getId(), secondUserId);
+        assertThat(countRepository.findById(hash)).isEmpty();
+        assertThat(photoStorage.exists(hash)).isFalse();
+    }
+
+    @Test
+    void deletingTheLastReferenceWaitsForAConcurrentUploadOfTheSameBytes() throws Exception {
+        byte[] avatar = "avatar uploaded again while being deleted".getBytes();
+        Photo existing = photoService.savePhoto(file(avatar), secondUserId);
+        String hash = existing.getContentHash();
+
+        // The upload holds the content row lock until it commits; the delete has to wait for it
+        Photo uploaded = transactionTemplate.execute(status -> {
+            try {
+                Photo photo = photoService.savePhoto(file(avatar), firstUserId);
+                CompletableFuture<Void> delete = CompletableFuture.runAsync(() -> {
+                    try {
+                        photoService.deletePhoto(existing.getId(), secondUserId);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                Thread.sleep(300);
+                assertThat(delete).isNotDone();
+                status.flush();
+                return photo;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        awaitRefCount(hash, 1);
+
+        assertThat(photoStorage.exists(hash)).isTrue();
+        assertThat(photoService.getImageData(uploaded.getId())).isEqualTo(avatar);
+        photoService.deletePhoto(uploaded.getId(), firstUserId);
+        assertThat(photoStorage.exists(hash)).isFalse();
+    }
+
+    @Test
+    void aVariantWrittenDuringTheLastDeleteIsReclaimedWithIt() throws Exception {
+        Long userId = TestUsers.patient(patientRepository).getId();
+        Photo photo = photoService.savePhoto(file("avatar resized while deleted".getBytes()), userId);
+        String hash = photo.getContentHash();
+        String variantKey = PhotoStorage.variantKey(hash, 64);
+
+        // A resize publishing its variant holds the content row; the delete has to wait for it
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Boolean> publish = CompletableFuture.supplyAsync(() -> {
+            try {
+                return contentRegistry.publishDerived(hash, () -> {
+                    writing.countDown();
+                    try {
+                        finish.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    photoStorage.storeVariant(hash, 64, new ByteArrayInputStream("variant".getBytes()));
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> delete = CompletableFuture.runAsync(() -> {
+            try {
+                photoService.deletePhoto(photo.getId(), userId);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(300);
+        assertThat(delete).isNotDone();
+
+        finish.countDown();
+        assertThat(publish.get(10, TimeUnit.SECONDS)).isTrue();
+        delete.get(10, TimeUnit.SECONDS);
+
+        assertThat(photoStorage.exists(hash)).isFalse();
+        assertThat(photoStorage.exists(variantKey)).isFalse();
+        // Once the content is gone, a late resize publishes nothing
+        assertThat(contentRegistry.publishDerived(hash, () -> {
+            throw new IllegalStateException("must not write");
+        })).isFalse();
+    }
+
+    private long refCount(String hash) {
+        return countRepository.findById(hash).map(PhotoContentCount::getRefCount).orElse(0L);
+    }
+
+    private void awaitRefCount(String hash, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (refCount(hash) != expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(refCount(hash)).isEqualTo(expected);
+    }
+
+    private static MockMultipartFile file(byte[] bytes) {
+        return new MockMultipartFile("file", "avatar.png", "image/png", bytes);
+    }
+}
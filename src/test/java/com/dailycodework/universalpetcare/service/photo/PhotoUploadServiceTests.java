@@ -0,0 +1,215 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.dto.PhotoUploadDto;
+import com.dailycodework.universalpetcare.exception.ResourceNotFoundException;
+import com.dailycodework.universalpetcare.exception.UploadLimitExceededException;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.request.PhotoUploadRequest;
+import jakarta.servlet.MultipartConfigElement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"photo.upload.max-file-size=64KB", "photo.upload.user-quota=96KB"})
+@ActiveProfiles("h2")
+class PhotoUploadServiceTests {
+    private static final int SIZE = 40 * 1024;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private IPhotoUploadService uploadService;
+    @Autowired
+    private IPhotoService photoService;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private PhotoStorage photoStorage;
+    @Autowired
+    private MultipartConfigElement multipartConfig;
+
+    private Long userId;
+    private byte[] data;
+
+    @BeforeEach
+    void setUp() {
+        userId = TestUsers.patient(patientRepository).getId();
+        data = new byte[SIZE];
+        new Random(7).nextBytes(data);
+    }
+
+    @Test
+    void interruptedUploadResumesFromAcknowledgedOffset() throws Exception {
+        PhotoUploadDto upload = uploadService.startUpload(request(SIZE));
+
+        upload = uploadService.appendChunk(upload.getUploadId(), 0, slice(0, 10_000));
+        assertThat(upload.getOffset()).isEqualTo(10_000);
+
+        // The connection drops 5000 bytes into the next chunk
+        String uploadId = upload.getUploadId();
+        assertThatThrownBy(() -> uploadService.appendChunk(uploadId, 10_000, droppedAfter(slice(10_000, SIZE), 5_000)))
+                .isInstanceOf(IOException.class);
+        assertThat(uploadService.getUpload(uploadId).getOffset()).isEqualTo(15_000);
+
+        // Resending from the old offset is refused; the client resumes where the server says
+        assertThatThrownBy(() -> uploadService.appendChunk(uploadId, 10_000, slice(10_000, SIZE)))
+                .isInstanceOf(IllegalStateException.class);
+        upload = uploadService.appendChunk(uploadId, 15_000, slice(15_000, SIZE));
+
+        assertThat(upload.isComplete()).isTrue();
+        assertThat(photoService.getImageData(upload.getPhotoId())).isEqualTo(data);
+        photoService.deletePhoto(upload.getPhotoId(), userId);
+    }
+
+    @Test
+    void limitsAreEnforcedWhileReading() throws Exception {
+        assertThatThrownBy(() -> uploadService.startUpload(request(65 * 1024)))
+                .isInstanceOf(UploadLimitExceededException.class);
+
+        // A chunk longer than the declared size is cut off at the limit
+        PhotoUploadDto upload = uploadService.startUpload(request(SIZE));
+        byte[] tooLong = Arrays.copyOf(data, SIZE + 1);
+        assertThatThrownBy(() -> uploadService.appendChunk(upload.getUploadId(), 0, new ByteArrayInputStream(tooLong)))
+                .isInstanceOf(UploadLimitExceededException.class);
+        assertThat(uploadService.getUpload(upload.getUploadId()).getOffset()).isZero();
+
+        // The open upload holds 40KB of the 96KB quota, so a 60KB direct upload no longer fits
+        MockMultipartFile file = new MockMultipartFile("file", "big.jpg", "image/jpeg", new byte[60 * 1024]);
+        assertThatThrownBy(() -> photoService.savePhoto(file, userId))
+                .isInstanceOf(UploadLimitExceededException.class);
+
+        uploadService.cancelUpload(upload.getUploadId());
+        photoService.deletePhoto(photoService.savePhoto(file, userId).getId(), userId);
+    }
+
+    @Test
+    void concurrentStartsCannotOverbookTheQuota() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<PhotoUploadDto>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return uploadService.startUpload(request(SIZE));
+                }));
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        List<PhotoUploadDto> started = new ArrayList<>();
+        for (Future<PhotoUploadDto> result : results) {
+            try {
+                started.add(result.get());
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(UploadLimitExceededException.class);
+            }
+        }
+        // 96KB of quota holds two 40KB uploads
+        assertThat(started).hasSize(2);
+        for (PhotoUploadDto upload : started) {
+            uploadService.cancelUpload(upload.getUploadId());
+        }
+    }
+
+    @Test
+    void updatePhotoCountsTheOwnersOpenUploads() throws Exception {
+        Photo photo = photoService.savePhoto(new MockMultipartFile("file", "a.jpg", "image/jpeg", new byte[1024]), userId);
+        PhotoUploadDto upload = uploadService.startUpload(request(SIZE));
+        MockMultipartFile replacement = new MockMultipartFile("file", "b.jpg", "image/jpeg", new byte[60 * 1024]);
+
+        assertThatThrownBy(() -> photoService.updatePhoto(photo.getId(), replacement))
+                .isInstanceOf(UploadLimitExceededException.class);
+
+        uploadService.cancelUpload(upload.getUploadId());
+        photoService.updatePhoto(photo.getId(), replacement);
+        photoService.deletePhoto(photo.getId(), userId);
+    }
+
+    @Test
+    void chunkFinishingAfterCancelDoesNotRestoreTheUpload() throws Exception {
+        String uploadId = uploadService.startUpload(request(SIZE)).getUploadId();
+        // The upload is cancelled while its chunk is still being read
+        InputStream chunk = cancelledAfter(slice(0, 10_000), 5_000, uploadId);
+
+        assertThatThrownBy(() -> uploadService.appendChunk(uploadId, 0, chunk))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        assertThatThrownBy(() -> uploadService.getUpload(uploadId))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(photoStorage.partSize(uploadId)).isZero();
+        assertThatThrownBy(() -> uploadService.cancelUpload(uploadId))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void multipartRequestCapFollowsTheFileLimit() {
+        assertThat(multipartConfig.getMaxFileSize()).isEqualTo(64 * 1024);
+        assertThat(multipartConfig.getMaxRequestSize()).isEqualTo(64 * 1024 + 1024 * 1024);
+    }
+
+    private InputStream cancelledAfter(InputStream in, int bytes, String uploadId) {
+        return new InputStream() {
+            private int left = bytes;
+
+            @Override
+            public int read() throws IOException {
+                if (left-- == 0) {
+                    uploadService.cancelUpload(uploadId);
+                }
+                return in.read();
+            }
+        };
+    }
+
+    private PhotoUploadRequest request(long totalSize) {
+        PhotoUploadRequest request = new PhotoUploadRequest();
+        request.setUserId(userId);
+        request.setFileName("phone.jpg");
+        request.setContentType("image/jpeg");
+        request.setTotalSize(totalSize);
+        return request;
+    }
+
+    private InputStream slice(int from, int to) {
+        return new ByteArrayInputStream(data, from, to - from);
+    }
+
+    private static InputStream droppedAfter(InputStream in, int bytes) {
+        return new InputStream() {
+            private int left = bytes;
+
+            @Override
+            public int read() throws IOException {
+                if (left-- <= 0) {
+                    throw new IOException("Connection reset");
+                }
+                return in.read();
+            }
+        };
+    }
+}
@@ -0,0 +1,233 @@
+package com.dailycodework.universalpetcare.service.photo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhotoVariantServiceTests {
+    private static final int CALLERS = 8;
+
+    @TempDir
+    Path directory;
+
+    private GatedStorage storage;
+    private StubRegistry registry;
+    private PhotoVariantService variantService;
+    private String hash;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new GatedStorage(directory.toString());
+        registry = new StubRegistry(storage);
+        hash = store(png(400, 200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.gate.countDown();
+        if (variantService != null) {
+            variantService.shutdown();
+        }
+    }
+
+    @Test
+    void normalizePicksTheSmallestVariantThatIsLargeEnough() {
+        assertThat(PhotoVariantService.normalize(0)).isEqualTo(64);
+        assertThat(PhotoVariantService.normalize(64)).isEqualTo(64);
+        assertThat(PhotoVariantService.normalize(65)).isEqualTo(256);
+        assertThat(PhotoVariantService.normalize(256)).isEqualTo(256);
+        assertThat(PhotoVariantService.normalize(1024)).isEqualTo(1024);
+        assertThat(PhotoVariantService.normalize(5000)).isEqualTo(1024);
+    }
+
+    @Test
+    void ensureWritesAScaledJpegOnce() throws IOException {
+        variantService = service(2, 10);
+        storage.gate.countDown();
+
+        assertThat(variantService.ensure(hash, 256)).isTrue();
+        assertThat(variantService.ensure(hash, 256)).isTrue();
+
+        BufferedImage variant = readVariant(256);
+        assertThat(variant.getWidth()).isEqualTo(256);
+        assertThat(variant.getHeight()).isEqualTo(128);
+        // Never scaled up past the original
+        assertThat(variantService.ensure(hash, 1024)).isTrue();
+        assertThat(readVariant(1024).getWidth()).isEqualTo(400);
+        assertThat(storage.variantsWritten.get()).isEqualTo(2);
+    }
+
+    @Test
+    void generateAllAsyncWritesEveryVariant() {
+        variantService = service(2, 10);
+        storage.gate.countDown();
+
+        variantService.generateAllAsync(hash);
+
+        for (int size : PhotoVariantService.SIZES) {
+            assertThat(variantService.ensure(hash, size)).isTrue();
+            assertThat(storage.exists(PhotoStorage.variantKey(hash, size))).isTrue();
+        }
+        assertThat(storage.variantsWritten.get()).isEqualTo(PhotoVariantService.SIZES.length);
+    }
+
+    @Test
+    void concurrentEnsureForOneKeySharesOneResize() throws Exception {
+        variantService = service(4, 10);
+        List<CompletableFuture<Boolean>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> variantService.ensure(hash, 64)));
+        }
+        assertThat(storage.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+
+        storage.gate.countDown();
+
+        for (CompletableFuture<Boolean> caller : callers) {
+            assertThat(caller.get(10, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(storage.variantsWritten.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedWorkIsReportedAndRetriedOnTheNextRequest() throws Exception {
+        // One worker and one queue slot: 64 runs (held at the gate), 256 waits, 1024 is rejected
+        variantService = service(1, 1);
+        variantService.generateAllAsync(hash);
+        assertThat(storage.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long started = System.nanoTime();
+        assertThat(variantService.ensure(hash, 1024)).isFalse();
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(2));
+
+        storage.gate.countDown();
+        // Joins the queued work, which frees the queue slot again
+        assertThat(variantService.ensure(hash, 64)).isTrue();
+        assertThat(variantService.ensure(hash, 256)).isTrue();
+
+        assertThat(variantService.ensure(hash, 1024)).isTrue();
+        assertThat(storage.exists(PhotoStorage.variantKey(hash, 1024))).isTrue();
+    }
+
+    @Test
+    void contentThatIsNotAnImageHasNoVariant() throws IOException {
+        variantService = service(1, 1);
+        storage.gate.countDown();
+        String text = store("plain text".getBytes());
+
+        assertThat(variantService.ensure(text, 64)).isFalse();
+        assertThat(storage.variantsWritten.get()).isZero();
+        // Remembered: neither a request nor a fresh upload of the same bytes decodes it again
+        assertThat(variantService.ensure(text, 64)).isFalse();
+        variantService.generateAllAsync(text);
+        assertThat(variantService.ensure(text, 256)).isFalse();
+        assertThat(variantService.ensure(text, 1024)).isFalse();
+        assertThat(variantService.ensure(text, 64)).isFalse();
+        assertThat(storage.originalReads.get()).isEqualTo(PhotoVariantService.SIZES.length);
+    }
+
+    @Test
+    void variantOfContentReclaimedDuringTheResizeIsNotWritten() throws Exception {
+        variantService = service(1, 1);
+        CompletableFuture<Boolean> caller = CompletableFuture.supplyAsync(() -> variantService.ensure(hash, 64));
+        assertThat(storage.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        registry.referenced = false;
+        storage.gate.countDown();
+
+        assertThat(caller.get(10, TimeUnit.SECONDS)).isFalse();
+        assertThat(storage.exists(PhotoStorage.variantKey(hash, 64))).isFalse();
+        assertThat(storage.variantsWritten.get()).isZero();
+    }
+
+    private PhotoVariantService service(int threads, int queueCapacity) {
+        return new PhotoVariantService(storage, registry, threads, queueCapacity, Duration.ofMinutes(10));
+    }
+
+    private BufferedImage readVariant(int size) throws IOException {
+        try (InputStream in = storage.open(PhotoStorage.variantKey(hash, size))) {
+            return ImageIO.read(in);
+        }
+    }
+
+    private String store(byte[] bytes) throws IOException {
+        StagedContent staged = storage.stage(new ByteArrayInputStream(bytes));
+        storage.publish(staged);
+        return staged.hash();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+
+    // Holds every resize at its first read until the gate opens, and counts written variants
+    private static class GatedStorage extends FileSystemPhotoStorage {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final AtomicInteger variantsWritten = new AtomicInteger();
+        final AtomicInteger originalReads = new AtomicInteger();
+
+        GatedStorage(String directory) throws IOException {
+            super(directory);
+        }
+
+        @Override
+        public InputStream open(String key) throws IOException {
+            if (!key.contains("-")) {
+                originalReads.incrementAndGet();
+                entered.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            return super.open(key);
+        }
+
+        @Override
+        public void storeVariant(String hash, int variant, InputStream content) throws IOException {
+            variantsWritten.incrementAndGet();
+            super.storeVariant(hash, variant, content);
+        }
+    }
+
+    // Stands in for the count row check: writes straight through while the content is referenced
+    private static class StubRegistry extends PhotoContentRegistry {
+        volatile boolean referenced = true;
+
+        StubRegistry(PhotoStorage storage) {
+            super(null, storage, null, null);
+        }
+
+        @Override
+        public boolean publishDerived(String hash, DerivedWriter writer) throws IOException {
+            if (!referenced) {
+                return false;
+            }
+            writer.write();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.dailycodework.universalpetcare.service.review;
+
+import com.dailycodework.universalpetcare.dto.CursorPageDto;
+import com.dailycodework.universalpetcare.dto.ReviewDto;
+import com.dailycodework.universalpetcare.model.Review;
+import com.dailycodework.universalpetcare.model.User;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.ReviewRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * A vet who both received and wrote reviews pages through them newest first,
+ * with the same number of statements per page however many reviews exist.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReviewFeedTests {
+    private static final int REVIEWS = 32;
+
+    @Autowired
+    private IReviewService reviewService;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long vetId;
+    private final List<Long> reviewIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User vet = veterinarianRepository.findAll().get(5);
+        User otherVet = veterinarianRepository.findAll().get(6);
+        List<? extends User> patients = patientRepository.findAll();
+        vetId = vet.getId();
+        // Interleave received and written reviews so the merge has to alternate
+        for (int i = 0; i < REVIEWS; i++) {
+            boolean written = i % 4 == 3;
+            Review review = new Review();
+            review.setStars(1 + i % 5);
+            review.setFeedback("Feed " + i);
+            review.setVeterinarian(written ? otherVet : vet);
+            review.setPatient(written ? vet : patients.get(i % patients.size()));
+            reviewIds.add(reviewRepository.save(review).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewRepository.deleteAllById(reviewIds);
+    }
+
+    @Test
+    void pagesThroughReceivedAndWrittenReviewsNewestFirst() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> seen = new ArrayList<>();
+        List<Long> statementsPerPage = new ArrayList<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            CursorPageDto<ReviewDto> page = reviewService.getReviewFeed(vetId, cursor, 7);
+            statementsPerPage.add(statistics.getPrepareStatementCount());
+            page.getItems().forEach(review -> seen.add(review.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(reviewIds.stream().sorted(Comparator.reverseOrder()).toList());
+        // The keyset union and the user summaries, the same on every page
+        assertThat(statementsPerPage).containsOnly(2L);
+    }
+}
@@ -0,0 +1,114 @@
+package com.dailycodework.universalpetcare.service.review;
+
+import com.dailycodework.universalpetcare.dto.ReviewDto;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.model.Review;
+import com.dailycodework.universalpetcare.model.User;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.ReviewRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.service.photo.IPhotoService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Reading reviews must not cost a statement per review: the rows and the
+ * summaries of every user they reference are two queries (plus the COUNT of the
+ * offset-paged listing), whatever the page size.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReviewReadStatementTests {
+    private static final int REVIEWS = 40;
+    private static final int[] PAGE_SIZES = {5, 10, 20};
+
+    @Autowired
+    private IReviewService reviewService;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private IPhotoService photoService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long vetId;
+    private Long patientWithPhotoId;
+    private Photo patientPhoto;
+    private final List<Long> reviewIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User vet = veterinarianRepository.findAll().get(8);
+        List<? extends User> patients = patientRepository.findAll();
+        vetId = vet.getId();
+        patientWithPhotoId = patients.get(4).getId();
+        patientPhoto = photoService.savePhoto(new MockMultipartFile("file", "me.jpg", "image/jpeg",
+                "reviewer photo".getBytes()), patientWithPhotoId);
+        for (int i = 0; i < REVIEWS; i++) {
+            Review review = new Review();
+            review.setStars(1 + i % 5);
+            review.setFeedback("Statement " + i);
+            review.setVeterinarian(vet);
+            review.setPatient(patients.get(i % patients.size()));
+            reviewIds.add(reviewRepository.save(review).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        reviewRepository.deleteAllById(reviewIds);
+        photoService.deletePhoto(patientPhoto.getId(), patientWithPhotoId);
+    }
+
+    @Test
+    void feedPageIsTwoStatementsForAnyPageSize() {
+        List<Long> counts = statementsPerPageSize(size -> reviewService.getReviewFeed(vetId, null, size).getItems());
+        assertThat(counts).containsOnly(2L);
+    }
+
+    @Test
+    void pagedListingStatementsDoNotGrowWithPageSize() {
+        List<Long> counts = statementsPerPageSize(size -> reviewService.findAllReviewsByUserId(vetId, 0, size).getContent());
+        assertThat(counts).containsOnly(counts.get(0));
+        assertThat(counts.get(0)).isLessThanOrEqualTo(3);
+    }
+
+    private List<Long> statementsPerPageSize(IntFunction<List<ReviewDto>> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> counts = new ArrayList<>();
+        for (int size : PAGE_SIZES) {
+            statistics.clear();
+            List<ReviewDto> reviews = read.apply(size);
+            counts.add(statistics.getPrepareStatementCount());
+
+            assertThat(reviews).hasSize(size);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+            assertThat(reviews).allSatisfy(review -> {
+                assertThat(review.getVeterinarianId()).isEqualTo(vetId);
+                assertThat(review.getVeterinarianName()).isNotBlank();
+                assertThat(review.getPatientName()).isNotBlank();
+            });
+            assertThat(reviews).filteredOn(review -> patientWithPhotoId.equals(review.getPatientId()))
+                    .allSatisfy(review -> assertThat(review.getPatientPhotoUrl()).contains("?v="));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,173 @@
+package com.dailycodework.universalpetcare.service.review;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.model.Review;
+import com.dailycodework.universalpetcare.model.VetRatingAggregate;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.VetRatingAggregateRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
+import com.dailycodework.universalpetcare.request.ReviewUpdateRequest;
+import com.dailycodework.universalpetcare.service.appointment.AppointmentStatusCounter;
+import com.dailycodework.universalpetcare.service.appointment.IAppointmentService;
+import com.dailycodework.universalpetcare.service.user.IUserService;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class VetRatingAggregatorTests {
+    @Autowired
+    private IReviewService reviewService;
+    @Autowired
+    private VetRatingAggregator ratingAggregator;
+    @Autowired
+    private VetRatingAggregateRepository aggregateRepository;
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentStatusCounter statusCounter;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private IUserService userService;
+
+    @Test
+    void aggregateFollowsReviewWritesAndRepairFixesDrift() {
+        Long vetId = veterinarianRepository.findAll().get(3).getId();
+        Long firstPatientId = patientRepository.findAll().get(1).getId();
+        Long secondPatientId = patientRepository.findAll().get(2).getId();
+        completeAppointment(firstPatientId, vetId, LocalTime.of(9, 0));
+        completeAppointment(secondPatientId, vetId, LocalTime.of(13, 0));
+
+        Review first = reviewService.saveReview(review(5), firstPatientId, vetId);
+        Review second = reviewService.saveReview(review(2), secondPatientId, vetId);
+        assertAggregate(vetId, 2, 7);
+
+        reviewService.updateReview(second.getId(), update(4));
+        assertAggregate(vetId, 2, 9);
+
+        reviewService.deleteReview(first.getId());
+        assertAggregate(vetId, 1, 4);
+        assertThat(ratingAggregator.findByVeterinarianIds(List.of(vetId)).get(vetId).getAverageRating())
+                .isEqualTo(4.0);
+
+        aggregateRepository.save(new VetRatingAggregate(vetId, 10, 10));
+        ratingAggregator.repair();
+        assertAggregate(vetId, 1, 4);
+
+        reviewService.deleteReview(second.getId());
+        assertAggregate(vetId, 0, 0);
+    }
+
+    @Test
+    void averageIsReadWithoutLoadingReviewsAndCachedUntilTheNextWrite() {
+        Long vetId = veterinarianRepository.findAll().get(4).getId();
+        Long patientId = patientRepository.findAll().get(3).getId();
+        completeAppointment(patientId, vetId, LocalTime.of(10, 0));
+        Review review = reviewService.saveReview(review(3), patientId, vetId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        assertThat(reviewService.getAverageRatingForVet(vetId)).isEqualTo(3.0);
+        assertThat(statistics.getEntityStatistics(Review.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+
+        statistics.clear();
+        assertThat(reviewService.getAverageRatingForVet(vetId)).isEqualTo(3.0);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        reviewService.updateReview(review.getId(), update(5));
+        assertThat(reviewService.getRatingForVet(vetId)).isEqualTo(new VetRating(1, 5.0));
+
+        reviewService.deleteReview(review.getId());
+        assertThat(reviewService.getRatingForVet(vetId).reviewCount()).isZero();
+    }
+
+    @Test
+    void deletingAReviewerWaitsForAConcurrentStarChange() throws Exception {
+        Long vetId = TestUsers.vet(veterinarianRepository, "Nội khoa").getId();
+        Long patientId = TestUsers.patient(patientRepository).getId();
+        completeAppointment(patientId, vetId, LocalTime.of(11, 0));
+        Review review = reviewService.saveReview(review(2), patientId, vetId);
+
+        // The update holds the vet's rating row until it commits; the delete has to read its new stars
+        CompletableFuture<Void> delete = transactionTemplate.execute(status -> {
+            reviewService.updateReview(review.getId(), update(5));
+            CompletableFuture<Void> pending = CompletableFuture.runAsync(() -> userService.delete(patientId));
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertThat(pending).isNotDone();
+            return pending;
+        });
+        delete.get(10, TimeUnit.SECONDS);
+
+        assertAggregate(vetId, 0, 0);
+    }
+
+    private void assertAggregate(Long vetId, long reviewCount, long starSum) {
+        VetRatingAggregate aggregate = aggregateRepository.findById(vetId).orElseThrow();
+        assertThat(aggregate.getReviewCount()).isEqualTo(reviewCount);
+        assertThat(aggregate.getStarSum()).isEqualTo(starSum);
+    }
+
+    private void completeAppointment(Long patientId, Long vetId, LocalTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setReason("Tái khám");
+        appointment.setAppointmentDate(LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(20));
+        appointment.setAppointmentTime(time);
+        BookAppointmentRequest request = new BookAppointmentRequest();
+        request.setAppointment(appointment);
+        request.setPets(new ArrayList<>());
+        Long id = appointmentService.createAppointment(request, patientId, vetId).getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            int rows = appointmentRepository.transitionById(id, AppointmentStatus.WAITING_FOR_APPROVAL,
+                    AppointmentStatus.COMPLETED, appointment.getAppointmentDate(), time);
+            statusCounter.recordTransition(AppointmentStatus.WAITING_FOR_APPROVAL, AppointmentStatus.COMPLETED, rows);
+        });
+    }
+
+    private static Review review(int stars) {
+        Review review = new Review();
+        review.setStars(stars);
+        review.setFeedback("Bác sĩ tận tình");
+        return review;
+    }
+
+    private static ReviewUpdateRequest update(int stars) {
+        ReviewUpdateRequest request = new ReviewUpdateRequest();
+        request.setStars(stars);
+        request.setFeedback("Đã cập nhật");
+        return request;
+    }
+}
@@ -0,0 +1,87 @@
+package com.dailycodework.universalpetcare.service.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScheduleSlotsTests {
+
+    @Test
+    void alignedBookingHoldsExactlyTwoHours() {
+        BitSet slots = booked(LocalTime.of(10, 0));
+
+        assertThat(slots.nextSetBit(0)).isEqualTo(ScheduleSlots.slotOf(LocalTime.of(10, 0)));
+        assertThat(slots.cardinality()).isEqualTo(ScheduleSlots.APPOINTMENT_SLOTS);
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(8, 0))).isTrue();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(8, 10))).isFalse();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(11, 50))).isFalse();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(12, 0))).isTrue();
+    }
+
+    @Test
+    void unalignedBookingHoldsEverySlotItTouches() {
+        // 08:05 - 10:05 touches the slots from 08:00 up to 10:10
+        BitSet slots = booked(LocalTime.of(8, 5));
+
+        assertThat(slots.nextSetBit(0)).isZero();
+        assertThat(slots.nextClearBit(0)).isEqualTo(ScheduleSlots.slotOf(LocalTime.of(10, 10)));
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(10, 0))).isFalse();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(10, 4))).isFalse();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(10, 10))).isTrue();
+    }
+
+    @Test
+    void unalignedRequestChecksItsLastMinutes() {
+        BitSet slots = booked(LocalTime.of(12, 0));
+
+        // 09:55 - 11:55 fits; 10:05 - 12:05 runs into the 12:00 booking
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(9, 55))).isTrue();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(10, 5))).isFalse();
+    }
+
+    @Test
+    void overlappingBookingsCollide() {
+        BitSet slots = booked(LocalTime.of(10, 0));
+
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(10, 0))).isFalse();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(9, 0))).isFalse();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(11, 59))).isFalse();
+        assertThat(ScheduleSlots.isFree(slots, LocalTime.of(8, 5))).isFalse();
+    }
+
+    @Test
+    void dayIsClampedAtBothEnds() {
+        BitSet slots = booked(LocalTime.of(18, 0));
+
+        assertThat(slots.length()).isEqualTo(ScheduleSlots.SLOTS_PER_DAY);
+        assertThat(ScheduleSlots.isFree(new BitSet(), LocalTime.of(18, 0))).isTrue();
+        assertThat(ScheduleSlots.isFree(new BitSet(), LocalTime.of(18, 5))).isFalse();
+        assertThat(ScheduleSlots.isFree(new BitSet(), LocalTime.of(7, 59))).isFalse();
+
+        BitSet late = new BitSet();
+        ScheduleSlots.occupy(late, LocalTime.of(18, 5));
+        assertThat(late.length()).isEqualTo(ScheduleSlots.SLOTS_PER_DAY);
+
+        BitSet early = new BitSet();
+        ScheduleSlots.occupy(early, LocalTime.of(7, 0));
+        assertThat(early.nextSetBit(0)).isZero();
+        assertThat(early.nextClearBit(0)).isEqualTo(ScheduleSlots.slotOf(LocalTime.of(9, 0)));
+    }
+
+    @Test
+    void firstFreeSkipsToTheEndOfAnUnalignedBooking() {
+        BitSet slots = booked(LocalTime.of(8, 5));
+
+        assertThat(ScheduleSlots.firstFree(slots, LocalTime.of(8, 0))).contains(LocalTime.of(10, 10));
+        assertThat(ScheduleSlots.freeStartTimes(slots, LocalTime.of(8, 0))).startsWith(LocalTime.of(10, 10));
+    }
+
+    private static BitSet booked(LocalTime start) {
+        BitSet slots = new BitSet(ScheduleSlots.SLOTS_PER_DAY);
+        ScheduleSlots.occupy(slots, start);
+        return slots;
+    }
+}
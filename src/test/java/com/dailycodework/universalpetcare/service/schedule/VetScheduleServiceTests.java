@@ -0,0 +1,64 @@
+package com.dailycodework.universalpetcare.service.schedule;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
+import com.dailycodework.universalpetcare.service.appointment.IAppointmentService;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class VetScheduleServiceTests {
+    @Autowired
+    private IVetScheduleService scheduleService;
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void bulkDeclinedBookingFreesItsSlotsOnRefresh() {
+        Long vetId = TestUsers.vet(veterinarianRepository, "Nội khoa").getId();
+        Long patientId = TestUsers.patient(patientRepository).getId();
+        LocalDate date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(3);
+        LocalTime time = LocalTime.of(10, 0);
+        Long id = appointmentService.createAppointment(request(date, time), patientId, vetId).getId();
+        assertThat(scheduleService.isAvailable(vetId, date, time)).isFalse();
+
+        // A transition that bypasses the service, like the status sweep
+        appointmentRepository.transitionById(id, AppointmentStatus.WAITING_FOR_APPROVAL,
+                AppointmentStatus.NOT_APPROVED, date, time);
+        scheduleService.refreshReleasedDay(date);
+
+        assertThat(scheduleService.isAvailable(vetId, date, time)).isTrue();
+    }
+
+    private static BookAppointmentRequest request(LocalDate date, LocalTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setReason("Khám định kỳ");
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        BookAppointmentRequest request = new BookAppointmentRequest();
+        request.setAppointment(appointment);
+        request.setPets(new ArrayList<>());
+        return request;
+    }
+}
@@ -0,0 +1,105 @@
+package com.dailycodework.universalpetcare.service.user;
+
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.model.Veterinarian;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.service.photo.IPhotoService;
+import com.dailycodework.universalpetcare.service.veterinarian.IVeterinarianService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Guards the paths that load users but never show a photo: every one of them must
+ * leave the Photo rows (and the stored bytes behind them) alone, and run a fixed
+ * number of statements however many users have a photo.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class UserPhotoLoadingTests {
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private IVeterinarianService veterinarianService;
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private IPhotoService photoService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String vetEmail;
+    private final List<Photo> photos = new ArrayList<>();
+    private final List<Long> photoOwners = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        List<Veterinarian> vets = veterinarianRepository.findAll();
+        vetEmail = vets.get(0).getEmail();
+        for (Veterinarian vet : vets) {
+            MockMultipartFile file = new MockMultipartFile("file", "vet.jpg", "image/jpeg", ("vet-" + vet.getId()).getBytes());
+            photos.add(photoService.savePhoto(file, vet.getId()));
+            photoOwners.add(vet.getId());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (int i = 0; i < photos.size(); i++) {
+            photoService.deletePhoto(photos.get(i).getId(), photoOwners.get(i));
+        }
+    }
+
+    @Test
+    void authenticationLoadsNoPhoto() {
+        userDetailsService.loadUserByUsername(vetEmail);
+
+        assertNoPhotoLoaded();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void vetListingsLoadNoPhoto() {
+        assertThat(veterinarianService.getAllVeterinariansWithDetails())
+                .allSatisfy(vet -> assertThat(vet.getPhotoId()).isPositive());
+        assertNoPhotoLoaded();
+        long withDetails = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        assertThat(veterinarianService.getAllVeterinarians(0, 10).getContent())
+                .allSatisfy(vet -> assertThat(vet.getPhotoId()).isNotNull());
+        assertNoPhotoLoaded();
+        long page = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        userService.searchUsers("", "VET");
+        assertNoPhotoLoaded();
+        long search = statistics.getPrepareStatementCount();
+
+        assertThat(withDetails).as("statements for the detailed vet listing").isLessThanOrEqualTo(3);
+        assertThat(page).as("statements for a vet page").isLessThanOrEqualTo(4);
+        assertThat(search).as("statements for a vet search").isLessThanOrEqualTo(3);
+    }
+
+    private void assertNoPhotoLoaded() {
+        assertThat(statistics.getEntityStatistics(Photo.class.getName()).getLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,176 @@
+package com.dailycodework.universalpetcare.service.user;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.model.Patient;
+import com.dailycodework.universalpetcare.model.Photo;
+import com.dailycodework.universalpetcare.model.Review;
+import com.dailycodework.universalpetcare.model.User;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.ReviewRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.service.photo.IPhotoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * The vet profile (GET /users/user/{id}) for a vet with many reviews whose authors
+ * all have photos must link the photos, not embed their bytes.
+ * With -Dprofile.benchmark=true the same profile is also measured: response size,
+ * latency and bytes allocated per request. When the profile still embedded photo
+ * bytes this measured about 8.3 MB, 843 ms and 112 MB allocated per request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class UserProfilePayloadTests {
+    private static final Logger log = LoggerFactory.getLogger(UserProfilePayloadTests.class);
+    private static final int PATIENTS = 5;
+    private static final int REVIEWS = 50;
+    private static final int PHOTO_BYTES = 60 * 1024;
+    // Longer than any id, name or URL in the payload, far shorter than an encoded photo
+    private static final int MAX_TEXT_LENGTH = 512;
+    private static final int WARMUP = 5;
+    private static final int RUNS = 20;
+    private static final Set<String> BYTE_FIELDS = Set.of("image", "photo", "photoBytes", "bytes", "data");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private IPhotoService photoService;
+
+    private Long vetId;
+    private final List<Long> reviewIds = new ArrayList<>();
+    private final List<Photo> photos = new ArrayList<>();
+    private final List<Long> photoOwners = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Random random = new Random(42);
+        User vet = TestUsers.vet(veterinarianRepository, "Nội khoa");
+        vetId = vet.getId();
+        addPhoto(vet.getId(), random);
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < PATIENTS; i++) {
+            Patient patient = TestUsers.patient(patientRepository);
+            patients.add(patient);
+            addPhoto(patient.getId(), random);
+        }
+        for (int i = 0; i < REVIEWS; i++) {
+            Review review = new Review();
+            review.setStars(1 + i % 5);
+            review.setFeedback("Review " + i);
+            review.setVeterinarian(vet);
+            review.setPatient(patients.get(i % PATIENTS));
+            reviewIds.add(reviewRepository.save(review).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        reviewRepository.deleteAllById(reviewIds);
+        for (int i = 0; i < photos.size(); i++) {
+            photoService.deletePhoto(photos.get(i).getId(), photoOwners.get(i));
+        }
+    }
+
+    @Test
+    void vetProfileLinksPhotosInsteadOfEmbeddingThem() throws Exception {
+        byte[] body = fetchProfile();
+
+        assertThat(body.length).isLessThan(PHOTO_BYTES);
+        JsonNode user = objectMapper.readTree(body).get("data");
+        assertThat(user.get("photoUrl").asText()).isNotBlank();
+        JsonNode reviews = user.get("reviews");
+        assertThat(reviews).isNotEmpty();
+        for (JsonNode review : reviews) {
+            assertThat(review.get("patientPhotoUrl").asText()).isNotBlank();
+        }
+        assertNoPhotoBytes(user, "data");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "profile.benchmark", matches = "true")
+    void measureVetProfile() throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            fetchProfile();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        int size = 0;
+        for (int i = 0; i < RUNS; i++) {
+            size = fetchProfile().length;
+        }
+        double millis = (System.nanoTime() - started) / 1e6 / RUNS;
+        long allocated = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / RUNS;
+        log.info("Vet profile with {} reviews: {} bytes, {} ms, {} KB allocated per request ({} runs)",
+                REVIEWS, size, String.format("%.2f", millis), allocated / 1024, RUNS);
+
+        assertThat(size).isLessThan(PHOTO_BYTES);
+    }
+
+    private byte[] fetchProfile() throws Exception {
+        return mockMvc.perform(get("/api/v1/users/user/" + vetId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private static void assertNoPhotoBytes(JsonNode node, String path) {
+        if (node.isTextual()) {
+            assertThat(node.asText().length()).as(path).isLessThan(MAX_TEXT_LENGTH);
+        } else if (node.isBinary()) {
+            throw new AssertionError("Binary value at " + path);
+        } else if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                assertThat(field.getKey()).as(path).isNotIn(BYTE_FIELDS);
+                assertNoPhotoBytes(field.getValue(), path + "." + field.getKey());
+            }
+        } else if (node.isArray()) {
+            for (int i = 0; i < node.size(); i++) {
+                assertNoPhotoBytes(node.get(i), path + "[" + i + "]");
+            }
+        }
+    }
+
+    private void addPhoto(Long userId, Random random) throws Exception {
+        byte[] bytes = new byte[PHOTO_BYTES];
+        random.nextBytes(bytes);
+        photos.add(photoService.savePhoto(new MockMultipartFile("file", "photo.jpg", "image/jpeg", bytes), userId));
+        photoOwners.add(userId);
+    }
+}
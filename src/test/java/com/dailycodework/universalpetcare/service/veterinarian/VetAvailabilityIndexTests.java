@@ -0,0 +1,159 @@
+package com.dailycodework.universalpetcare.service.veterinarian;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.enums.AppointmentStatus;
+import com.dailycodework.universalpetcare.model.Appointment;
+import com.dailycodework.universalpetcare.model.Veterinarian;
+import com.dailycodework.universalpetcare.repository.AppointmentRepository;
+import com.dailycodework.universalpetcare.repository.PatientRepository;
+import com.dailycodework.universalpetcare.repository.UserRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.request.BookAppointmentRequest;
+import com.dailycodework.universalpetcare.service.appointment.IAppointmentService;
+import com.dailycodework.universalpetcare.utils.SystemUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class VetAvailabilityIndexTests {
+    @Autowired
+    private VetAvailabilityIndex availabilityIndex;
+    @Autowired
+    private IAppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String specialization;
+    private LocalDate date;
+    private Long patientId;
+
+    @BeforeEach
+    void setUp() {
+        specialization = "Availability-" + UUID.randomUUID();
+        date = LocalDate.now(SystemUtils.CLINIC_ZONE).plusDays(6);
+        patientId = TestUsers.patient(patientRepository).getId();
+    }
+
+    @Test
+    void indexAndFallbackIgnoreCancelledAndDeclinedAppointments() {
+        Long booked = TestUsers.vet(veterinarianRepository, specialization).getId();
+        Long cancelled = TestUsers.vet(veterinarianRepository, specialization).getId();
+        Long declined = TestUsers.vet(veterinarianRepository, specialization).getId();
+        Long free = TestUsers.vet(veterinarianRepository, specialization).getId();
+        book(booked, LocalTime.of(10, 0));
+        appointmentService.cancelAppointment(book(cancelled, LocalTime.of(10, 0)));
+        appointmentService.declineAppointment(book(declined, LocalTime.of(10, 0)));
+
+        assertThat(fromIndex(LocalTime.of(9, 0), LocalTime.of(11, 0)))
+                .containsExactlyInAnyOrder(cancelled, declined, free);
+        assertSameAnswer(LocalTime.of(9, 0), LocalTime.of(11, 0));
+        assertSameAnswer(LocalTime.of(7, 20), LocalTime.of(12, 40));
+        // Bounds are exclusive in both
+        assertSameAnswer(LocalTime.of(10, 0), LocalTime.of(12, 0));
+        assertSameAnswer(LocalTime.of(8, 0), LocalTime.of(10, 0));
+    }
+
+    @Test
+    void reloadPicksUpRowsWrittenElsewhere() {
+        Long vetId = TestUsers.vet(veterinarianRepository, specialization).getId();
+        // Written straight to the table, as another node would
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(LocalTime.of(15, 0));
+        appointment.setStatus(AppointmentStatus.APPROVED);
+        appointment.setVeterinarian(userRepository.getReferenceById(vetId));
+        appointmentRepository.save(appointment);
+
+        availabilityIndex.load();
+
+        assertThat(fromIndex(LocalTime.of(14, 0), LocalTime.of(16, 0))).isEmpty();
+        assertSameAnswer(LocalTime.of(14, 0), LocalTime.of(16, 0));
+    }
+
+    @Test
+    void writesCommittedDuringAReloadSurviveIt() {
+        Long bookedVet = TestUsers.vet(veterinarianRepository, specialization).getId();
+        Long cancelledVet = TestUsers.vet(veterinarianRepository, specialization).getId();
+        Long cancelled = book(cancelledVet, LocalTime.of(10, 0));
+        List<Long> booked = new ArrayList<>();
+        VetAvailabilityIndex[] index = new VetAvailabilityIndex[1];
+        // Books one vet and cancels the other after the reload has read its snapshot, before it swaps it in
+        AppointmentRepository interleaving = (AppointmentRepository) Proxy.newProxyInstance(
+                AppointmentRepository.class.getClassLoader(), new Class<?>[]{AppointmentRepository.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(appointmentRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("findBookedTimesFrom") && booked.isEmpty()) {
+                        booked.add(book(bookedVet, LocalTime.of(10, 0)));
+                        index[0].update(appointmentRepository.findById(booked.get(0)).orElseThrow());
+                        appointmentService.cancelAppointment(cancelled);
+                        index[0].evict(cancelled);
+                    }
+                    return result;
+                });
+        index[0] = new VetAvailabilityIndex(interleaving);
+        index[0].load();
+
+        Set<Long> busy = index[0].findBusyVeterinarianIds(date, LocalTime.of(9, 0), LocalTime.of(11, 0));
+        assertThat(busy).contains(bookedVet).doesNotContain(cancelledVet);
+        // A later reload from the same rows gives the same answer
+        index[0].load();
+        assertThat(index[0].findBusyVeterinarianIds(date, LocalTime.of(9, 0), LocalTime.of(11, 0))).isEqualTo(busy);
+    }
+
+    private void assertSameAnswer(LocalTime minTime, LocalTime maxTime) {
+        Set<Long> fromDatabase = veterinarianRepository.findAvailableVeterinarians(specialization, date,
+                        minTime, maxTime, AppointmentStatus.SLOT_RELEASING)
+                .stream()
+                .map(Veterinarian::getId)
+                .collect(Collectors.toSet());
+        assertThat(fromIndex(minTime, maxTime)).as("available between %s and %s", minTime, maxTime)
+                .isEqualTo(fromDatabase);
+    }
+
+    private Set<Long> fromIndex(LocalTime minTime, LocalTime maxTime) {
+        assertThat(availabilityIndex.covers(date)).isTrue();
+        Set<Long> busy = availabilityIndex.findBusyVeterinarianIds(date, minTime, maxTime);
+        return veterinarianRepository.findBySpecialization(specialization).stream()
+                .map(Veterinarian::getId)
+                .filter(id -> !busy.contains(id))
+                .collect(Collectors.toSet());
+    }
+
+    private Long book(Long vetId, LocalTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setReason("Khám định kỳ");
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        BookAppointmentRequest request = new BookAppointmentRequest();
+        request.setAppointment(appointment);
+        request.setPets(new ArrayList<>());
+        return appointmentService.createAppointment(request, patientId, vetId).getId();
+    }
+}
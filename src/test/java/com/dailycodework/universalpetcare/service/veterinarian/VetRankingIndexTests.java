@@ -0,0 +1,139 @@
+package com.dailycodework.universalpetcare.service.veterinarian;
+
+import com.dailycodework.universalpetcare.TestUsers;
+import com.dailycodework.universalpetcare.dto.RankedVetDto;
+import com.dailycodework.universalpetcare.model.VetRatingAggregate;
+import com.dailycodework.universalpetcare.model.Veterinarian;
+import com.dailycodework.universalpetcare.repository.VetRatingAggregateRepository;
+import com.dailycodework.universalpetcare.repository.VeterinarianRepository;
+import com.dailycodework.universalpetcare.service.review.VetRatingAggregator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class VetRankingIndexTests {
+    @Autowired
+    private VetRankingIndex rankingIndex;
+    @Autowired
+    private VetRatingAggregator ratingAggregator;
+    @Autowired
+    private VetRatingAggregateRepository aggregateRepository;
+    @Autowired
+    private VeterinarianRepository veterinarianRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String specialization;
+    private Veterinarian singleReviewVet;
+    private Veterinarian establishedVet;
+    private Veterinarian weakVet;
+
+    @BeforeEach
+    void setUp() {
+        specialization = "Ranking-" + UUID.randomUUID();
+        singleReviewVet = TestUsers.vet(veterinarianRepository, specialization);
+        establishedVet = TestUsers.vet(veterinarianRepository, specialization);
+        weakVet = TestUsers.vet(veterinarianRepository, specialization);
+    }
+
+    @AfterEach
+    void tearDown() {
+        aggregateRepository.deleteAllById(List.of(singleReviewVet.getId(), establishedVet.getId(), weakVet.getId()));
+        rankingIndex.rebuild();
+    }
+
+    @Test
+    void manyGoodReviewsOutrankOnePerfectOneAndReviewWritesMoveTheRanking() {
+        aggregateRepository.save(new VetRatingAggregate(singleReviewVet.getId(), 1, 5));
+        aggregateRepository.save(new VetRatingAggregate(establishedVet.getId(), 60, 276));
+        // Outweighs any other reviews and pulls the clinic-wide mean well below the established vet's 4.6
+        aggregateRepository.save(new VetRatingAggregate(weakVet.getId(), 400, 1200));
+        rankingIndex.rebuild();
+
+        assertThat(ids(rankingIndex.getTopVets(specialization, 10)))
+                .containsSubsequence(establishedVet.getId(), singleReviewVet.getId(), weakVet.getId());
+
+        // Lookups are case-insensitive and never touch the database
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<RankedVetDto> top = rankingIndex.getTopVets(" " + specialization.toUpperCase() + " ", 10);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        RankedVetDto established = top.stream().filter(vet -> vet.getId().equals(establishedVet.getId())).findFirst().orElseThrow();
+        assertThat(established.getAverageRating()).isEqualTo(4.6);
+        assertThat(established.getScore()).isLessThan(4.6);
+
+        // Forty more 5-star reviews for the other vet, applied on commit
+        transactionTemplate.executeWithoutResult(status -> ratingAggregator.apply(singleReviewVet.getId(), 40, 200));
+        assertThat(ids(rankingIndex.getTopVets(specialization, 10)))
+                .containsSubsequence(singleReviewVet.getId(), establishedVet.getId());
+        assertThat(rankingIndex.getTopVets(specialization, 1)).hasSize(1);
+    }
+
+    @Test
+    void aSlowStaleRefreshNeitherBlocksOthersNorOverwritesANewerOne() throws Exception {
+        aggregateRepository.save(new VetRatingAggregate(singleReviewVet.getId(), 1, 5));
+        aggregateRepository.save(new VetRatingAggregate(establishedVet.getId(), 2, 8));
+        // The first read of singleReviewVet is held after it returns, as a slow round trip would be
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        VetRatingAggregateRepository slowFirstRead = (VetRatingAggregateRepository) Proxy.newProxyInstance(
+                VetRatingAggregateRepository.class.getClassLoader(), new Class<?>[]{VetRatingAggregateRepository.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(aggregateRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("findRankingRow") && args[0].equals(singleReviewVet.getId())
+                            && read.getCount() > 0) {
+                        read.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    return result;
+                });
+        VetRankingIndex index = new VetRankingIndex(slowFirstRead, 5, 20);
+        index.rebuild();
+
+        CompletableFuture<Void> stale = CompletableFuture.runAsync(() -> index.refresh(singleReviewVet.getId()));
+        assertThat(read.await(5, TimeUnit.SECONDS)).isTrue();
+        aggregateRepository.save(new VetRatingAggregate(singleReviewVet.getId(), 3, 15));
+        aggregateRepository.save(new VetRatingAggregate(establishedVet.getId(), 3, 12));
+        // Neither waits for the held read
+        CompletableFuture.runAsync(() -> {
+            index.refresh(establishedVet.getId());
+            index.refresh(singleReviewVet.getId());
+        }).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        stale.get(5, TimeUnit.SECONDS);
+
+        List<RankedVetDto> top = index.getTopVets(specialization, 10);
+        assertThat(top).extracting(RankedVetDto::getId).containsExactly(singleReviewVet.getId(), establishedVet.getId());
+        assertThat(top).extracting(RankedVetDto::getReviewCount).containsExactly(3L, 3L);
+    }
+
+    private static List<Long> ids(List<RankedVetDto> vets) {
+        return vets.stream().map(RankedVetDto::getId).toList();
+    }
+}